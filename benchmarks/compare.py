@@ -0,0 +1,45 @@
+#!/usr/bin/env python3
+"""Compare two JMH JSON result files, e.g. python3 compare.py results/abc123.json results/def456.json"""
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        runs = json.load(f)
+    results = {}
+    for run in runs:
+        params = ",".join(f"{k}={v}" for k, v in sorted(run.get("params", {}).items()))
+        name = run["benchmark"].rsplit(".", 2)
+        key = f"{name[-2]}.{name[-1]}" + (f" [{params}]" if params else "")
+        metric = run["primaryMetric"]
+        # JMH writes "NaN" for the error of single-iteration runs
+        error = float(metric.get("scoreError") or 0.0)
+        results[key] = (run["mode"], metric["score"], 0.0 if error != error else error, metric["scoreUnit"])
+    return results
+
+
+def main():
+    if len(sys.argv) != 3:
+        print(__doc__)
+        sys.exit(1)
+    base, head = load(sys.argv[1]), load(sys.argv[2])
+    width = max(len(k) for k in set(base) | set(head))
+    print(f"{'Benchmark':<{width}}  {'base':>12}  {'head':>12}  {'change':>8}  unit")
+    for key in sorted(set(base) | set(head)):
+        if key not in base or key not in head:
+            print(f"{key:<{width}}  {'-' if key not in base else f'{base[key][1]:.3f}':>12}  "
+                  f"{'-' if key not in head else f'{head[key][1]:.3f}':>12}")
+            continue
+        mode, before, before_error, unit = base[key]
+        after, after_error = head[key][1], head[key][2]
+        change = (after - before) / before * 100 if before else 0.0
+        # Throughput improves upwards, average time downwards
+        better = change > 0 if mode == "thrpt" else change < 0
+        noise = abs(after - before) <= before_error + after_error
+        flag = "~" if noise else ("+" if better else "-")
+        print(f"{key:<{width}}  {before:>12.3f}  {after:>12.3f}  {change:>+7.1f}% {flag} {unit}")
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,17 @@
+#!/bin/bash
+# Builds the server and the JMH module, then runs the benchmarks and stores the results as
+# results/<commit>.json. Extra arguments are passed to JMH, e.g. a benchmark regex or "-p chars=256".
+set -e
+
+cd "$(dirname "$0")"
+COMMIT=$(git rev-parse --short HEAD)
+if [ -n "$(git status --porcelain -- ../src ../pom.xml)" ]; then
+    COMMIT="${COMMIT}-dirty"
+fi
+
+mvn -B -q -f ../pom.xml install -DskipTests
+mvn -B -q package
+
+mkdir -p results
+java -jar target/benchmarks.jar -rf json -rff "results/${COMMIT}.json" "$@"
+echo "Results written to benchmarks/results/${COMMIT}.json"
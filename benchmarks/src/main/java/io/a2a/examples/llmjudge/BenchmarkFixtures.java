@@ -0,0 +1,159 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Wires the judge components by hand, without CDI, and builds deterministic payloads of a given size.
+ * Optional subsystems (similarity cache, journal) stay disabled so only the hot path is measured.
+ */
+final class BenchmarkFixtures {
+
+    private static final String[] WORDS = {
+        "the", "model", "response", "explains", "machine", "learning", "as", "a", "method", "of", "training",
+        "algorithms", "on", "data", "to", "make", "predictions", "without", "explicit", "programming", "however",
+        "it", "omits", "examples", "and", "could", "be", "clearer", "about", "supervised", "versus", "unsupervised",
+        "approaches", "because", "accuracy", "depends", "heavily", "quality", "labelled", "datasets", "in", "practice"
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    static JsonRpcResource resource() {
+        JsonRpcResource resource = new JsonRpcResource();
+        resource.llmService = llmService();
+        resource.ensembleJudge = new EnsembleJudge();
+        resource.ensembleJudge.llmService = resource.llmService;
+        resource.similarityCache = new SimilarityCache();
+        resource.evaluationJournal = new EvaluationJournal();
+        resource.bulkEvaluationService = new BulkEvaluationService();
+        resource.metrics = new JudgeMetrics();
+        return resource;
+    }
+
+    // Unconfigured, so evaluations use the heuristic scorers and never leave the process
+    static LLMService llmService() {
+        LLMService service = new LLMService();
+        service.apiKey = Optional.empty();
+        service.model = "gpt-4";
+        service.temperature = 0.3;
+        service.maxTokens = 1000;
+        service.metrics = new JudgeMetrics();
+        return service;
+    }
+
+    static RateLimitFilter rateLimitFilter() {
+        RateLimitFilter filter = new RateLimitFilter();
+        filter.maxRequests = Integer.MAX_VALUE;
+        filter.windowMinutes = 60;
+        filter.metrics = new JudgeMetrics();
+        return filter;
+    }
+
+    /**
+     * Deterministic prose of roughly {@code chars} characters.
+     */
+    static String text(int chars, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(chars + 16);
+        int sentence = 0;
+        while (text.length() < chars) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            text.append(sentence == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            if (++sentence >= 8 + random.nextInt(10)) {
+                text.append(". ");
+                sentence = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    static Map<String, Object> request(String method, int chars) {
+        Map<String, Object> params = new HashMap<>();
+        switch (method) {
+            case "evaluate_response":
+                params.put("prompt", "Explain machine learning to a new engineer");
+                params.put("response", text(chars, 1));
+                params.put("criteria", List.of("accuracy", "clarity", "relevance", "completeness"));
+                break;
+            case "score_quality":
+                params.put("content", text(chars, 2));
+                params.put("content_type", "technical_writing");
+                params.put("dimensions", List.of("clarity", "technical_accuracy", "completeness"));
+                break;
+            case "check_factual_accuracy":
+                params.put("claim", text(chars, 3));
+                params.put("domain", "science");
+                break;
+            case "assess_relevance":
+                params.put("query", "How does supervised learning differ from unsupervised learning?");
+                params.put("response", text(chars, 4));
+                params.put("context", "Introductory machine learning course");
+                break;
+            case "compare_responses":
+                params.put("prompt", "Explain machine learning to a new engineer");
+                params.put("responses", List.of(text(chars, 5), text(chars, 6), text(chars, 7)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown method " + method);
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("jsonrpc", "2.0");
+        request.put("method", method);
+        request.put("params", params);
+        request.put("id", 1);
+        return request;
+    }
+
+    static String judgeOutput(int feedbackChars) {
+        return "```json\n{\n"
+            + "  \"overall_score\": 7.5,\n"
+            + "  \"criteria_scores\": {\"accuracy\": 8.0, \"clarity\": 7.0, \"relevance\": 8.5, \"completeness\": 6.5},\n"
+            + "  \"feedback\": \"" + text(feedbackChars, 8) + "\",\n"
+            + "  \"strengths\": [\"Accurate definition\", \"Good structure\"],\n"
+            + "  \"areas_for_improvement\": [\"Add concrete examples\", \"Contrast learning paradigms\"]\n"
+            + "}\n```";
+    }
+
+    /**
+     * A request context for {@code POST /jsonrpc} from the given client address. Only the calls the
+     * filters make are implemented.
+     */
+    static ContainerRequestContext jsonRpcRequest(String clientIp) {
+        UriInfo uriInfo = (UriInfo) Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(),
+            new Class<?>[]{UriInfo.class}, (proxy, method, args) -> {
+                if (method.getName().equals("getPath")) {
+                    return "/jsonrpc";
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        Map<String, Object> properties = new HashMap<>();
+        return (ContainerRequestContext) Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(),
+            new Class<?>[]{ContainerRequestContext.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getUriInfo":
+                        return uriInfo;
+                    case "getHeaderString":
+                        return "X-Forwarded-For".equals(args[0]) ? clientIp : null;
+                    case "getProperty":
+                        return properties.get((String) args[0]);
+                    case "setProperty":
+                        properties.put((String) args[0], args[1]);
+                        return null;
+                    case "abortWith":
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
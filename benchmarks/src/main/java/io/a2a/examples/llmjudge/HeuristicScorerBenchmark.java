@@ -0,0 +1,49 @@
+package io.a2a.examples.llmjudge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The heuristic (mock) scorers, driven through the JSON-RPC dispatcher the same way a request
+ * without an LLM key is served.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeuristicScorerBenchmark {
+
+    @Param({"evaluate_response", "score_quality", "check_factual_accuracy", "assess_relevance", "compare_responses"})
+    String method;
+
+    @Param({"256", "4096", "32768"})
+    int chars;
+
+    private JsonRpcResource resource;
+    private Map<String, Object> request;
+
+    @Setup
+    public void setup() {
+        resource = BenchmarkFixtures.resource();
+        request = BenchmarkFixtures.request(method, chars);
+    }
+
+    @Benchmark
+    public Map<String, Object> dispatch() {
+        return resource.handleRequest(request);
+    }
+}
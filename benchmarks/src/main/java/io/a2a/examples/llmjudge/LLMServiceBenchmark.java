@@ -0,0 +1,61 @@
+package io.a2a.examples.llmjudge;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt construction and judge-output parsing around an upstream call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LLMServiceBenchmark {
+
+    private static final List<String> CRITERIA = List.of("accuracy", "clarity", "relevance", "completeness");
+
+    @Param({"256", "4096", "32768"})
+    int chars;
+
+    private LLMService service;
+    private String response;
+    private String judgeOutput;
+
+    @Setup
+    public void setup() {
+        service = BenchmarkFixtures.llmService();
+        response = BenchmarkFixtures.text(chars, 1);
+        // Judges write feedback proportional to, but much shorter than, the evaluated text
+        judgeOutput = BenchmarkFixtures.judgeOutput(Math.max(128, chars / 8));
+    }
+
+    @Benchmark
+    public String buildEvaluationPrompt() {
+        return service.buildEvaluationPrompt("Explain machine learning to a new engineer", response, CRITERIA);
+    }
+
+    @Benchmark
+    public String buildQualityPrompt() {
+        return service.buildQualityPrompt(response, "technical_writing", CRITERIA);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseLLMResponse() throws Exception {
+        return service.parseLLMResponse(judgeOutput);
+    }
+}
@@ -0,0 +1,56 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RateLimitFilter#filter} with eight threads, either all hitting one client key (worst-case
+ * contention on a single counter) or spread over many clients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedFilter {
+
+        @Param({"1", "1024"})
+        int clients;
+
+        RateLimitFilter filter;
+        ContainerRequestContext[] requests;
+
+        @Setup
+        public void setup() {
+            filter = BenchmarkFixtures.rateLimitFilter();
+            requests = new ContainerRequestContext[clients];
+            for (int i = 0; i < clients; i++) {
+                requests[i] = BenchmarkFixtures.jsonRpcRequest("10.0." + (i / 256) + "." + (i % 256));
+            }
+        }
+    }
+
+    @Benchmark
+    public void filter(SharedFilter state) {
+        ContainerRequestContext request = state.requests[ThreadLocalRandom.current().nextInt(state.requests.length)];
+        state.filter.filter(request);
+    }
+}
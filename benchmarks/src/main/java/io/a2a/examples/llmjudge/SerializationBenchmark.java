@@ -0,0 +1,57 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-RPC request decoding and response encoding with the same untyped {@code Map} binding the
+ * resource uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"evaluate_response", "compare_responses"})
+    String method;
+
+    @Param({"256", "4096", "32768"})
+    int chars;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] requestBytes;
+    private Map<String, Object> response;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, Object> request = BenchmarkFixtures.request(method, chars);
+        requestBytes = objectMapper.writeValueAsBytes(request);
+        response = BenchmarkFixtures.resource().handleRequest(request);
+    }
+
+    @Benchmark
+    public Map<?, ?> readRequest() throws Exception {
+        return objectMapper.readValue(requestBytes, Map.class);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
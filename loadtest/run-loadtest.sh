@@ -0,0 +1,11 @@
+#!/bin/bash
+# Packages the app and runs a load-test scenario against it with the stub upstream.
+# Usage: loadtest/run-loadtest.sh [scenario.properties] [key=value ...]
+set -e
+
+cd "$(dirname "$0")/.."
+SCENARIO=${1:-loadtest/scenarios/smoke.properties}
+shift || true
+
+mvn -B -q package -DskipTests
+mvn -B -q -f loadtest/pom.xml compile exec:java -Dexec.args="$SCENARIO $*"
@@ -0,0 +1,61 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import java.util.Random;
+
+/**
+ * Latency model for the stub upstream, parsed from specs such as {@code fixed:200},
+ * {@code uniform:100:400} or {@code lognormal:300:0.6} (median ms and sigma). Lognormal is the
+ * usual shape of LLM generation time: most calls near the median and a long tail.
+ */
+public final class LatencyDistribution {
+
+    private final String spec;
+    private final String kind;
+    private final double a;
+    private final double b;
+
+    private LatencyDistribution(String spec, String kind, double a, double b) {
+        this.spec = spec;
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                    return new LatencyDistribution(spec, "fixed", Double.parseDouble(parts[1]), 0);
+                case "uniform":
+                    return new LatencyDistribution(spec, "uniform", Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "lognormal":
+                    return new LatencyDistribution(spec, "lognormal", Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed latency distribution: " + spec, e);
+        }
+    }
+
+    public long sampleMillis(Random random) {
+        double value;
+        switch (kind) {
+            case "uniform":
+                value = a + random.nextDouble() * (b - a);
+                break;
+            case "lognormal":
+                value = a * Math.exp(b * random.nextGaussian());
+                break;
+            default:
+                value = a;
+        }
+        return Math.max(0, Math.round(value));
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
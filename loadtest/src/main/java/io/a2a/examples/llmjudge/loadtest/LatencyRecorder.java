@@ -0,0 +1,116 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records request outcomes for one phase of a run. Two latencies are kept per request: from the
+ * time it was scheduled to be sent (corrected for coordinated omission, what a user would see) and
+ * from the time it was actually sent (service time). Samples are kept in full; runs are short
+ * enough that exact percentiles are cheaper than a histogram.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Series> byMethod = new ConcurrentHashMap<>();
+    private final Series all = new Series();
+
+    public void record(String method, long intendedStartNanos, long sentNanos, long endNanos, boolean error) {
+        long corrected = endNanos - intendedStartNanos;
+        long service = endNanos - sentNanos;
+        all.add(corrected, service, endNanos, error);
+        byMethod.computeIfAbsent(method, m -> new Series()).add(corrected, service, endNanos, error);
+    }
+
+    public long count() {
+        return all.count();
+    }
+
+    /**
+     * Throughput counts successful responses that completed inside the measurement window, so a
+     * server that falls behind shows up as lost throughput rather than a long drain.
+     */
+    public Map<String, Object> summary(long windowStartNanos, long windowEndNanos) {
+        Map<String, Object> summary = all.summary(windowStartNanos, windowEndNanos);
+        Map<String, Object> methods = new LinkedHashMap<>();
+        byMethod.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> methods.put(entry.getKey(), entry.getValue().summary(windowStartNanos, windowEndNanos)));
+        summary.put("methods", methods);
+        return summary;
+    }
+
+    private static final class Series {
+        private long[] corrected = new long[1024];
+        private long[] service = new long[1024];
+        private long[] successEnds = new long[1024];
+        private int size;
+        private int successes;
+        private long errors;
+
+        synchronized void add(long correctedNanos, long serviceNanos, long endNanos, boolean error) {
+            if (size == corrected.length) {
+                corrected = Arrays.copyOf(corrected, size * 2);
+                service = Arrays.copyOf(service, size * 2);
+            }
+            corrected[size] = correctedNanos;
+            service[size] = serviceNanos;
+            size++;
+            if (error) {
+                errors++;
+            } else {
+                if (successes == successEnds.length) {
+                    successEnds = Arrays.copyOf(successEnds, successes * 2);
+                }
+                successEnds[successes++] = endNanos;
+            }
+        }
+
+        synchronized long count() {
+            return size;
+        }
+
+        synchronized Map<String, Object> summary(long windowStartNanos, long windowEndNanos) {
+            long inWindow = 0;
+            for (int i = 0; i < successes; i++) {
+                if (successEnds[i] <= windowEndNanos) {
+                    inWindow++;
+                }
+            }
+            double windowSeconds = Math.max(windowEndNanos - windowStartNanos, 1) / 1e9;
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", size);
+            summary.put("errors", errors);
+            summary.put("error_rate", size == 0 ? 0.0 : round((double) errors / size));
+            summary.put("throughput_rps", round(inWindow / windowSeconds));
+            summary.put("latency_ms", percentiles(Arrays.copyOf(corrected, size)));
+            summary.put("service_time_ms", percentiles(Arrays.copyOf(service, size)));
+            return summary;
+        }
+    }
+
+    private static Map<String, Object> percentiles(long[] samples) {
+        Arrays.sort(samples);
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", percentile(samples, 0.50));
+        percentiles.put("p90", percentile(samples, 0.90));
+        percentiles.put("p99", percentile(samples, 0.99));
+        percentiles.put("p999", percentile(samples, 0.999));
+        percentiles.put("max", samples.length == 0 ? 0.0 : round(samples[samples.length - 1] / 1e6));
+        return percentiles;
+    }
+
+    // Nearest-rank percentile
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return round(sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6);
+    }
+
+    static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
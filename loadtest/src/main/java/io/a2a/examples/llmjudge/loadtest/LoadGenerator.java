@@ -0,0 +1,110 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are scheduled at a fixed arrival rate regardless of how fast the server
+ * answers. Latency is measured from each request's scheduled time, so a stalled server is charged
+ * for the requests it delayed instead of silently lowering the offered load.
+ */
+public class LoadGenerator {
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String apiKey;
+    private final RequestMix mix;
+    private final boolean poisson;
+    private final int maxInFlight;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random(42);
+
+    public LoadGenerator(HttpClient httpClient, URI endpoint, String apiKey, RequestMix mix, boolean poisson,
+                         int maxInFlight, Duration timeout) {
+        this.httpClient = httpClient;
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.mix = mix;
+        this.poisson = poisson;
+        this.maxInFlight = maxInFlight;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Offers {@code rate} requests per second for {@code seconds}, then waits for outstanding requests.
+     */
+    public void run(double rate, double seconds, LatencyRecorder recorder) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long intervalNanos = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long intended = start;
+        long id = 0;
+
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Blocking here delays the send but not the intended start, so the wait is still measured
+            inFlight.acquire();
+            send(++id, intended, recorder, inFlight);
+            intended += poisson ? (long) (-Math.log(1 - random.nextDouble()) * intervalNanos) : intervalNanos;
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.err.println("Timed out waiting for " + (maxInFlight - inFlight.availablePermits()) + " outstanding requests");
+        }
+    }
+
+    private void send(long id, long intendedStart, LatencyRecorder recorder, Semaphore inFlight) {
+        String method = mix.nextMethod(random);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(mix.request(method, id, random));
+        } catch (Exception e) {
+            inFlight.release();
+            throw new IllegalStateException(e);
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(endpoint)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (apiKey != null && !apiKey.isEmpty()) {
+            request.header("X-API-Key", apiKey);
+        }
+
+        long sent = System.nanoTime();
+        httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+            .whenComplete((response, failure) -> {
+                long now = System.nanoTime();
+                recorder.record(method, intendedStart, sent, now, failure != null || isError(response));
+                inFlight.release();
+            });
+    }
+
+    // Transport errors, non-200 statuses, JSON-RPC errors and error results all count
+    private boolean isError(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return true;
+        }
+        try {
+            Map<?, ?> json = objectMapper.readValue(response.body(), Map.class);
+            return json.containsKey("error")
+                || json.get("result") instanceof Map && ((Map<?, ?>) json.get("result")).containsKey("error");
+        } catch (Exception e) {
+            return true;
+        }
+    }
+}
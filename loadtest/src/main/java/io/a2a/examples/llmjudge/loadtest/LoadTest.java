@@ -0,0 +1,268 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * End-to-end load test. Starts the stub upstream and the packaged app (unless {@code app.url} points
+ * at a running instance), offers mixed JSON-RPC traffic at a fixed arrival rate, and checks the
+ * results against the scenario's thresholds. Exits with 1 when a threshold fails.
+ *
+ * <pre>
+ * mvn -f loadtest/pom.xml -q compile exec:java -Dexec.args="loadtest/scenarios/baseline.properties rate=40"
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+        Map.entry("app.jar", "target/quarkus-app/quarkus-run.jar"),
+        Map.entry("app.port", "18080"),
+        Map.entry("app.api.key", "loadtest-key"),
+        Map.entry("app.jvm.args", ""),
+        Map.entry("app.startup.timeout.seconds", "60"),
+        Map.entry("stub.latency", "lognormal:400:0.5"),
+        Map.entry("stub.error.rate", "0.0"),
+        Map.entry("stub.rate.limit.rate", "0.0"),
+        Map.entry("stub.stream.chunk.delay.ms", "20"),
+        Map.entry("mix", "evaluate_response:40,score_quality:20,check_factual_accuracy:15,assess_relevance:15,compare_responses:5,agent.status:5"),
+        Map.entry("arrival", "constant"),
+        Map.entry("rate", "20"),
+        Map.entry("warmup.seconds", "5"),
+        Map.entry("duration.seconds", "30"),
+        Map.entry("max.in.flight", "512"),
+        Map.entry("request.timeout.seconds", "30"),
+        Map.entry("report.file", "loadtest/target/report.json")
+    );
+
+    public static void main(String[] args) throws Exception {
+        Properties config = new Properties();
+        DEFAULTS.forEach(config::setProperty);
+        for (String arg : args) {
+            if (arg.contains("=")) {
+                config.setProperty(arg.substring(0, arg.indexOf('=')).trim(), arg.substring(arg.indexOf('=') + 1).trim());
+            } else {
+                try (Reader reader = Files.newBufferedReader(Paths.get(arg))) {
+                    config.load(reader);
+                }
+            }
+        }
+        System.exit(new LoadTest().run(config));
+    }
+
+    int run(Properties config) throws Exception {
+        StubLlmServer stub = null;
+        Process app = null;
+        String baseUrl = config.getProperty("app.url");
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        try {
+            if (baseUrl == null || baseUrl.isBlank()) {
+                stub = new StubLlmServer(
+                    LatencyDistribution.parse(config.getProperty("stub.latency")),
+                    Double.parseDouble(config.getProperty("stub.error.rate")),
+                    Double.parseDouble(config.getProperty("stub.rate.limit.rate")),
+                    Long.parseLong(config.getProperty("stub.stream.chunk.delay.ms")));
+                stub.start(Integer.parseInt(config.getProperty("stub.port", "0")));
+                app = launchApp(config, stub.getPort());
+                baseUrl = "http://127.0.0.1:" + config.getProperty("app.port");
+                awaitHealthy(httpClient, baseUrl, Integer.parseInt(config.getProperty("app.startup.timeout.seconds")), app);
+            }
+
+            LoadGenerator generator = new LoadGenerator(httpClient, URI.create(baseUrl + "/jsonrpc"),
+                config.getProperty("app.api.key"), new RequestMix(config.getProperty("mix")),
+                "poisson".equals(config.getProperty("arrival")), Integer.parseInt(config.getProperty("max.in.flight")),
+                Duration.ofSeconds(Long.parseLong(config.getProperty("request.timeout.seconds"))));
+            double rate = Double.parseDouble(config.getProperty("rate"));
+
+            double warmup = Double.parseDouble(config.getProperty("warmup.seconds"));
+            if (warmup > 0) {
+                System.out.printf(Locale.ROOT, "Warming up for %.0fs at %.1f req/s%n", warmup, rate);
+                generator.run(rate, warmup, new LatencyRecorder());
+            }
+            double fallbacksBefore = scrapeCounter(httpClient, baseUrl, config.getProperty("app.api.key"), "judge_llm_fallbacks_total");
+
+            double duration = Double.parseDouble(config.getProperty("duration.seconds"));
+            System.out.printf(Locale.ROOT, "Running for %.0fs at %.1f req/s%n", duration, rate);
+            LatencyRecorder recorder = new LatencyRecorder();
+            long start = System.nanoTime();
+            generator.run(rate, duration, recorder);
+            double fallbacks = scrapeCounter(httpClient, baseUrl, config.getProperty("app.api.key"), "judge_llm_fallbacks_total") - fallbacksBefore;
+
+            Map<String, Object> results = recorder.summary(start, start + (long) (duration * 1e9));
+            long requests = recorder.count();
+            results.put("offered_rps", rate);
+            results.put("fallbacks", (long) fallbacks);
+            results.put("fallback_rate", requests == 0 ? 0.0 : LatencyRecorder.round(fallbacks / requests));
+
+            List<Map<String, Object>> checks = checkThresholds(config, results, rate);
+            boolean passed = checks.stream().allMatch(check -> Boolean.TRUE.equals(check.get("passed")));
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("scenario", config.getProperty("name", "unnamed"));
+            report.put("passed", passed);
+            report.put("config", new TreeMap<>(config));
+            report.put("results", results);
+            report.put("thresholds", checks);
+            if (stub != null) {
+                report.put("stub", stub.getStats());
+            }
+            writeReport(Paths.get(config.getProperty("report.file")), report);
+            print(results, checks, passed);
+            return passed ? 0 : 1;
+        } finally {
+            if (app != null) {
+                app.destroy();
+                app.waitFor();
+            }
+            if (stub != null) {
+                stub.stop();
+            }
+        }
+    }
+
+    private Process launchApp(Properties config, int stubPort) throws IOException {
+        Path jar = Paths.get(config.getProperty("app.jar"));
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("App not packaged: " + jar.toAbsolutePath() + " (run mvn package first)");
+        }
+        Path workDir = Files.createTempDirectory("llmjudge-loadtest");
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String arg : config.getProperty("app.jvm.args").split("\\s+")) {
+            if (!arg.isBlank()) {
+                command.add(arg);
+            }
+        }
+        // The load generator is a single client, so the per-IP limit would only measure itself
+        command.add("-Drate.limit.requests=" + Integer.MAX_VALUE);
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.environment().put("PORT", config.getProperty("app.port"));
+        builder.environment().put("LLM_API_KEY", "stub-key");
+        builder.environment().put("LLM_API_URL", "http://127.0.0.1:" + stubPort + "/v1/chat/completions");
+        builder.environment().put("AGENT_API_KEY", config.getProperty("app.api.key"));
+        builder.environment().put("JOURNAL_DIR", workDir.resolve("journal").toString());
+        builder.environment().put("BULK_DATA_DIR", workDir.resolve("bulk").toString());
+        Path log = Paths.get(config.getProperty("report.file")).toAbsolutePath().resolveSibling("app.log");
+        Files.createDirectories(log.getParent());
+        builder.redirectErrorStream(true).redirectOutput(log.toFile());
+        System.out.println("Starting app (log: " + log + ")");
+        return builder.start();
+    }
+
+    private void awaitHealthy(HttpClient httpClient, String baseUrl, int timeoutSeconds, Process app) throws Exception {
+        long deadline = System.nanoTime() + timeoutSeconds * 1_000_000_000L;
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/agent/health")).timeout(Duration.ofSeconds(2)).build();
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("App exited with status " + app.exitValue() + " during startup");
+            }
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("App did not become healthy within " + timeoutSeconds + "s");
+    }
+
+    // Sums all series of a counter; 0 when the endpoint or counter is unavailable
+    private double scrapeCounter(HttpClient httpClient, String baseUrl, String apiKey, String name) {
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/metrics")).timeout(Duration.ofSeconds(5));
+            if (apiKey != null && !apiKey.isBlank()) {
+                builder.header("X-API-Key", apiKey);
+            }
+            HttpRequest request = builder.build();
+            String body = httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            double total = 0;
+            for (String line : body.split("\n")) {
+                if (line.startsWith(name + "{") || line.startsWith(name + " ")) {
+                    total += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                }
+            }
+            return total;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> checkThresholds(Properties config, Map<String, Object> results, double rate) {
+        Map<String, Object> latency = (Map<String, Object>) results.get("latency_ms");
+        List<Map<String, Object>> checks = new ArrayList<>();
+        checkMax(checks, config, "threshold.p50.ms", (Double) latency.get("p50"));
+        checkMax(checks, config, "threshold.p99.ms", (Double) latency.get("p99"));
+        checkMax(checks, config, "threshold.error.rate", (Double) results.get("error_rate"));
+        checkMax(checks, config, "threshold.fallback.rate", (Double) results.get("fallback_rate"));
+        String minRatio = config.getProperty("threshold.min.throughput.ratio");
+        if (minRatio != null) {
+            double ratio = LatencyRecorder.round((Double) results.get("throughput_rps") / rate);
+            checks.add(check("threshold.min.throughput.ratio", Double.parseDouble(minRatio), ratio, ratio >= Double.parseDouble(minRatio)));
+        }
+        return checks;
+    }
+
+    private void checkMax(List<Map<String, Object>> checks, Properties config, String key, double actual) {
+        String limit = config.getProperty(key);
+        if (limit != null) {
+            checks.add(check(key, Double.parseDouble(limit), actual, actual <= Double.parseDouble(limit)));
+        }
+    }
+
+    private Map<String, Object> check(String name, double limit, double actual, boolean passed) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("name", name);
+        check.put("limit", limit);
+        check.put("actual", actual);
+        check.put("passed", passed);
+        return check;
+    }
+
+    private void writeReport(Path file, Map<String, Object> report) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void print(Map<String, Object> results, List<Map<String, Object>> checks, boolean passed) {
+        Map<String, Object> latency = (Map<String, Object>) results.get("latency_ms");
+        Map<String, Object> service = (Map<String, Object>) results.get("service_time_ms");
+        System.out.printf(Locale.ROOT, "%nRequests %s, throughput %s req/s (offered %s), errors %s (%s), fallbacks %s%n",
+            results.get("requests"), results.get("throughput_rps"), results.get("offered_rps"),
+            results.get("errors"), results.get("error_rate"), results.get("fallbacks"));
+        System.out.printf(Locale.ROOT, "%-14s %10s %10s %10s %10s %10s%n", "ms", "p50", "p90", "p99", "p99.9", "max");
+        System.out.printf(Locale.ROOT, "%-14s %10s %10s %10s %10s %10s%n", "latency", latency.get("p50"), latency.get("p90"),
+            latency.get("p99"), latency.get("p999"), latency.get("max"));
+        System.out.printf(Locale.ROOT, "%-14s %10s %10s %10s %10s %10s%n", "service time", service.get("p50"), service.get("p90"),
+            service.get("p99"), service.get("p999"), service.get("max"));
+        for (Map<String, Object> check : checks) {
+            System.out.printf(Locale.ROOT, "%s %s: %s (limit %s)%n", Boolean.TRUE.equals(check.get("passed")) ? "PASS" : "FAIL",
+                check.get("name"), check.get("actual"), check.get("limit"));
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+    }
+}
@@ -0,0 +1,97 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of JSON-RPC calls, parsed from {@code method:weight,...}. Payload text lengths vary
+ * per request so caches and string handling see realistic spread.
+ */
+public class RequestMix {
+
+    private static final String[] WORDS = {
+        "machine", "learning", "models", "predict", "outcomes", "from", "labelled", "data", "and", "the", "response",
+        "explains", "gradient", "descent", "clearly", "but", "omits", "regularisation", "examples", "overfitting",
+        "validation", "accuracy", "depends", "on", "dataset", "quality", "photosynthesis", "converts", "light",
+        "energy", "into", "chemical", "energy", "in", "plants", "water", "boils", "at", "100", "degrees"
+    };
+
+    private final List<String> methods = new ArrayList<>();
+    private final double[] cumulative;
+
+    public RequestMix(String spec) {
+        List<Double> weights = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            methods.add(parts[0]);
+            weights.add(parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0);
+        }
+        double total = weights.stream().mapToDouble(Double::doubleValue).sum();
+        cumulative = new double[weights.size()];
+        double running = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            running += weights.get(i) / total;
+            cumulative[i] = running;
+        }
+    }
+
+    public String nextMethod(Random random) {
+        double roll = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (roll < cumulative[i]) {
+                return methods.get(i);
+            }
+        }
+        return methods.get(methods.size() - 1);
+    }
+
+    public Map<String, Object> request(String method, long id, Random random) {
+        Map<String, Object> params = new HashMap<>();
+        switch (method) {
+            case "evaluate_response":
+                params.put("prompt", "Explain " + text(random, 4, 10));
+                params.put("response", text(random, 40, 300));
+                params.put("criteria", List.of("accuracy", "clarity", "relevance"));
+                break;
+            case "score_quality":
+                params.put("content", text(random, 60, 400));
+                params.put("content_type", "technical_writing");
+                break;
+            case "check_factual_accuracy":
+                params.put("claim", text(random, 8, 30));
+                params.put("domain", "science");
+                break;
+            case "assess_relevance":
+                params.put("query", text(random, 6, 15) + "?");
+                params.put("response", text(random, 40, 200));
+                break;
+            case "compare_responses":
+                params.put("prompt", "Explain " + text(random, 4, 10));
+                params.put("responses", List.of(text(random, 30, 150), text(random, 30, 150)));
+                break;
+            default:
+                break;
+        }
+        Map<String, Object> request = new HashMap<>();
+        request.put("jsonrpc", "2.0");
+        request.put("method", method);
+        request.put("params", params);
+        request.put("id", id);
+        return request;
+    }
+
+    private static String text(Random random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(i % 12 == 0 ? ". " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package io.a2a.examples.llmjudge.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OpenAI-compatible {@code /v1/chat/completions} stand-in. Responses are well-formed judge JSON;
+ * latency, HTTP 500s and 429s follow the configured distribution and rates. Requests with
+ * {@code "stream": true} are answered as server-sent events, one chunk per few words.
+ */
+public class StubLlmServer {
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final long streamChunkDelayMs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong streamed = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubLlmServer(LatencyDistribution latency, double errorRate, double rateLimitRate, long streamChunkDelayMs) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+        this.streamChunkDelayMs = streamChunkDelayMs;
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        // Stub latency is spent sleeping, so a thread per in-flight call is the simplest honest model
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-llm");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("errors", errors.get());
+        stats.put("rate_limited", rateLimited.get());
+        stats.put("streamed", streamed.get());
+        stats.put("latency", latency.toString());
+        return stats;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            Map<?, ?> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+            Random random = ThreadLocalRandom.current();
+
+            double roll = random.nextDouble();
+            if (roll < rateLimitRate) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, 429, "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"requests\"}}");
+                return;
+            }
+
+            long delay = latency.sampleMillis(random);
+            if (roll < rateLimitRate + errorRate) {
+                errors.incrementAndGet();
+                sleep(delay / 2);
+                send(exchange, 500, "{\"error\":{\"message\":\"Stub upstream failure\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            int n = request.get("n") instanceof Number ? ((Number) request.get("n")).intValue() : 1;
+            List<String> contents = new ArrayList<>();
+            for (int i = 0; i < Math.max(1, n); i++) {
+                contents.add(judgeContent(random));
+            }
+
+            if (Boolean.TRUE.equals(request.get("stream"))) {
+                streamed.incrementAndGet();
+                stream(exchange, contents.get(0), delay);
+                return;
+            }
+
+            sleep(delay);
+            List<Map<String, Object>> choices = new ArrayList<>();
+            for (int i = 0; i < contents.size(); i++) {
+                choices.add(Map.of("index", i, "finish_reason", "stop",
+                    "message", Map.of("role", "assistant", "content", contents.get(i))));
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", "chatcmpl-stub-" + requests.get());
+            body.put("object", "chat.completion");
+            body.put("model", request.get("model"));
+            body.put("choices", choices);
+            body.put("usage", Map.of("prompt_tokens", 350, "completion_tokens", 90 * contents.size(),
+                "total_tokens", 350 + 90 * contents.size()));
+            exchange.getResponseHeaders().add("openai-processing-ms", Long.toString(delay));
+            send(exchange, 200, objectMapper.writeValueAsString(body));
+        }
+    }
+
+    // The first chunk arrives after the sampled latency, then the rest at a steady token rate
+    private void stream(HttpExchange exchange, String content, long firstChunkDelay) throws IOException {
+        sleep(firstChunkDelay);
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String[] words = content.split("(?<= )");
+        for (int i = 0; i < words.length; i += 4) {
+            StringBuilder piece = new StringBuilder();
+            for (int j = i; j < Math.min(words.length, i + 4); j++) {
+                piece.append(words[j]);
+            }
+            Map<String, Object> chunk = Map.of("object", "chat.completion.chunk",
+                "choices", List.of(Map.of("index", 0, "delta", Map.of("content", piece.toString()))));
+            out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            if (i + 4 < words.length) {
+                sleep(streamChunkDelayMs);
+            }
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String judgeContent(Random random) throws IOException {
+        double score = Math.round((5 + random.nextDouble() * 4) * 10) / 10.0;
+        Map<String, Object> judgement = new LinkedHashMap<>();
+        judgement.put("overall_score", score);
+        judgement.put("accuracy_score", score);
+        judgement.put("criteria_scores", Map.of("accuracy", score, "clarity", score - 0.5, "relevance", score));
+        judgement.put("dimension_scores", Map.of("clarity", score, "completeness", score - 1));
+        judgement.put("verification_status", score >= 7 ? "verified" : "partially_verified");
+        judgement.put("confidence", 0.8);
+        judgement.put("feedback", "The response covers the main points clearly but would benefit from a concrete example.");
+        judgement.put("analysis", "Generally sound with minor omissions.");
+        judgement.put("strengths", List.of("Accurate", "Well structured"));
+        judgement.put("areas_for_improvement", List.of("Add examples"));
+        judgement.put("suggestions", List.of("Add examples"));
+        return "```json\n" + objectMapper.writeValueAsString(judgement) + "\n```";
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+
+/**
+ * AIMD concurrency limit for upstream LLM calls. The limit grows by one per window of successful
+ * calls while the limit is actually in use, and is cut by {@code limiter.backoff.ratio} when the
+ * upstream pushes back: a 429 (increases then stay paused for its {@code Retry-After}), an overload
+ * status or timeout, or recent latency drifting above {@code limiter.latency.tolerance} times the
+ * long-run baseline. At most one cut is applied per round trip, so a burst of 429s from calls that
+ * were already in flight counts once.
+ */
+@ApplicationScoped
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger log = Logger.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    @ConfigProperty(name = "limiter.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "limiter.initial", defaultValue = "8")
+    int initialLimit;
+
+    @ConfigProperty(name = "limiter.min", defaultValue = "1")
+    int minLimit;
+
+    // The scheduler's hard cap is also the ceiling for the adaptive limit
+    @ConfigProperty(name = "scheduler.max.concurrent", defaultValue = "32")
+    int maxLimit;
+
+    @ConfigProperty(name = "limiter.backoff.ratio", defaultValue = "0.7")
+    double backoffRatio;
+
+    @ConfigProperty(name = "limiter.latency.tolerance", defaultValue = "2.0")
+    double latencyTolerance;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private double limit;
+    private double increaseCredit;
+    private double shortRttMillis;
+    private double longRttMillis;
+    private long lastDecreaseNanos;
+    private long holdUntilNanos;
+
+    @PostConstruct
+    void init() {
+        limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        // nanoTime has an arbitrary origin, so the markers start relative to now
+        holdUntilNanos = System.nanoTime();
+        lastDecreaseNanos = holdUntilNanos - 3_600_000_000_000L;
+        metrics.gauge("judge_upstream_concurrency_limit", "Current adaptive limit on concurrent upstream calls", () -> getLimit());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Feeds the outcome of one upstream call. {@code status} is the HTTP status, or "error" for
+     * transport failures and timeouts, or null for calls aborted on our side; {@code retryAfterSeconds}
+     * is negative when absent.
+     */
+    public void onCompleted(String status, long latencyNanos, int inFlight, long retryAfterSeconds) {
+        if (!enabled || status == null) {
+            return;
+        }
+        switch (status) {
+            case "200":
+                onSuccess(latencyNanos, inFlight);
+                break;
+            case "429":
+                onDrop("rate_limited", retryAfterSeconds);
+                break;
+            case "503":
+            case "529":
+            case "error":
+                onDrop("overloaded", retryAfterSeconds);
+                break;
+            default:
+                // Other statuses say nothing about capacity
+                break;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        return Map.of(
+            "enabled", enabled,
+            "limit", (int) limit,
+            "min", minLimit,
+            "max", maxLimit,
+            "short_rtt_ms", ScoreStats.round(shortRttMillis),
+            "long_rtt_ms", ScoreStats.round(longRttMillis)
+        );
+    }
+
+    private synchronized void onSuccess(long latencyNanos, int inFlight) {
+        double rtt = latencyNanos / 1e6;
+        // Short window follows the last ~10 calls, the baseline the last few hundred
+        shortRttMillis = shortRttMillis == 0 ? rtt : shortRttMillis * 0.9 + rtt * 0.1;
+        longRttMillis = longRttMillis == 0 ? rtt : longRttMillis * 0.995 + rtt * 0.005;
+
+        long now = System.nanoTime();
+        if (shortRttMillis > longRttMillis * latencyTolerance) {
+            decrease("latency", now);
+            return;
+        }
+        // No growth while backing off, or while callers are not using the current limit
+        if (now - holdUntilNanos < 0 || inFlight * 2 < limit) {
+            return;
+        }
+        increaseCredit += 1.0 / limit;
+        if (increaseCredit >= 1.0) {
+            increaseCredit = 0;
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    private synchronized void onDrop(String reason, long retryAfterSeconds) {
+        long now = System.nanoTime();
+        if (retryAfterSeconds > 0) {
+            long until = now + retryAfterSeconds * 1_000_000_000L;
+            if (until - holdUntilNanos > 0) {
+                holdUntilNanos = until;
+            }
+        }
+        decrease(reason, now);
+    }
+
+    private void decrease(String reason, long now) {
+        long window = (long) (Math.max(longRttMillis, 1) * 1_000_000);
+        if (now - lastDecreaseNanos < window) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        increaseCredit = 0;
+        double previous = limit;
+        limit = Math.max(minLimit, Math.floor(limit * backoffRatio));
+        metrics.counter("judge_upstream_limit_decreases_total", "Cuts of the adaptive upstream concurrency limit",
+            "reason", reason).increment();
+        log.debug("Upstream concurrency limit " + (int) previous + " -> " + (int) limit + " (" + reason + ")");
+    }
+}
@@ -0,0 +1,130 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Draws judgement samples in batches, asking for more only while the samples disagree,
+ * and folds them into a single result with spread and agreement statistics.
+ */
+public final class AdaptiveSampler {
+
+    private AdaptiveSampler() {
+    }
+
+    /**
+     * Parses the {@code samples} parameter: either a maximum sample count or an object with
+     * {@code initial}, {@code max}, {@code tolerance} and {@code aggregation}. Returns null when
+     * sampling was not requested.
+     */
+    public static SamplingRequest parseRequest(Object samplesParam, int maxSamplesLimit) {
+        if (samplesParam instanceof Number) {
+            int max = Math.max(1, Math.min(((Number) samplesParam).intValue(), maxSamplesLimit));
+            return new SamplingRequest(Math.min(3, max), max, 1.0, "median");
+        }
+        if (!(samplesParam instanceof Map)) {
+            return null;
+        }
+
+        Map<?, ?> map = (Map<?, ?>) samplesParam;
+        int max = map.get("max") instanceof Number ? ((Number) map.get("max")).intValue() : 5;
+        max = Math.max(1, Math.min(max, maxSamplesLimit));
+        int initial = map.get("initial") instanceof Number ? ((Number) map.get("initial")).intValue() : Math.min(3, max);
+        initial = Math.max(1, Math.min(initial, max));
+        double tolerance = map.get("tolerance") instanceof Number ? ((Number) map.get("tolerance")).doubleValue() : 1.0;
+        String aggregation = map.get("aggregation") instanceof String ? (String) map.get("aggregation") : "median";
+        return new SamplingRequest(initial, max, tolerance, aggregation);
+    }
+
+    /**
+     * Samples until the spread of the headline scores is within tolerance or the maximum is reached.
+     * {@code drawBatch} is called with the number of samples wanted and may return fewer. A batch
+     * holding a fallback result means the upstream call failed: sampling stops with an error rather
+     * than scoring the heuristic stand-in.
+     */
+    public static Map<String, Object> sample(SamplingRequest sampling, String scoreField, String breakdownField,
+                                             IntFunction<List<Map<String, Object>>> drawBatch) {
+        List<Map<String, Object>> samples = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        int batches = 0;
+        int requested = 0;
+        int batchSize = sampling.initial();
+
+        while (requested < sampling.max() && batchSize > 0) {
+            requested += batchSize;
+            batches++;
+            for (Map<String, Object> sample : drawBatch.apply(batchSize)) {
+                if (LLMService.isFallback(sample)) {
+                    return Map.of(
+                        "error", "Sampling failed: the judge call failed after " + samples.size() + " samples",
+                        "error_code", "SAMPLING_FAILED"
+                    );
+                }
+                if (sample.get(scoreField) instanceof Number) {
+                    samples.add(sample);
+                    scores.add(((Number) sample.get(scoreField)).doubleValue());
+                }
+            }
+            if (scores.isEmpty() || ScoreStats.spread(scores) <= sampling.tolerance()) {
+                break;
+            }
+            // Disagreement: double the sample size, capped at the maximum
+            batchSize = Math.min(sampling.max() - requested, requested);
+        }
+
+        if (samples.isEmpty()) {
+            return Map.of(
+                "error", "Sampling failed: no sample returned a score",
+                "error_code", "SAMPLING_FAILED"
+            );
+        }
+
+        double aggregate = ScoreStats.aggregate(scores, sampling.aggregation());
+        int representative = 0;
+        for (int i = 1; i < scores.size(); i++) {
+            if (Math.abs(scores.get(i) - aggregate) < Math.abs(scores.get(representative) - aggregate)) {
+                representative = i;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>(samples.get(representative));
+        result.put(scoreField, ScoreStats.round(aggregate));
+        if (breakdownField != null) {
+            result.put(breakdownField, ScoreStats.aggregateBreakdown(samples, breakdownField, sampling.aggregation()));
+        }
+
+        List<Double> roundedScores = new ArrayList<>();
+        for (double score : scores) {
+            roundedScores.add(ScoreStats.round(score));
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("aggregation", sampling.aggregation());
+        summary.put("samples", samples.size());
+        summary.put("upstream_calls", batches);
+        summary.put("scores", roundedScores);
+        summary.put("mean", ScoreStats.round(ScoreStats.mean(scores)));
+        summary.put("stddev", ScoreStats.round(Math.sqrt(ScoreStats.variance(scores))));
+        summary.put("spread", ScoreStats.round(ScoreStats.spread(scores)));
+        summary.put("agreement", ScoreStats.round(ScoreStats.agreement(scores, sampling.tolerance())));
+        summary.put("tolerance", sampling.tolerance());
+        result.put("sampling", summary);
+        return result;
+    }
+
+    // Draws n independent samples from a local (non-LLM) scorer
+    public static List<Map<String, Object>> repeat(int n, Supplier<Map<String, Object>> supplier) {
+        List<Map<String, Object>> samples = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            samples.add(supplier.get());
+        }
+        return samples;
+    }
+
+    public record SamplingRequest(int initial, int max, double tolerance, String aggregation) {
+    }
+}
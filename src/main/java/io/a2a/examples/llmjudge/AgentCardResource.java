@@ -4,6 +4,7 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.inject.Inject;
 import java.util.Collections;
@@ -12,7 +13,9 @@ import java.util.Map;
 
 import io.a2a.spec.AgentCard;
 import io.a2a.spec.AgentCapabilities;
+import io.a2a.spec.AgentInterface;
 import io.a2a.spec.AgentSkill;
+import io.a2a.spec.TransportProtocol;
 
 @Path("/agent")
 public class AgentCardResource {
@@ -20,6 +23,9 @@ public class AgentCardResource {
     @Inject
     UriInfo uriInfo;
 
+    @Inject
+    WarmupService warmupService;
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     public AgentCard getAgentCard() {
@@ -74,10 +80,29 @@ public class AgentCardResource {
                                 .description("Compares multiple responses to the same prompt and ranks them")
                                 .tags(List.of("comparison", "ranking", "evaluation"))
                                 .examples(List.of("compare_responses prompt='Explain X' responses=['response1','response2'] criteria=['accuracy','detail']"))
+                                .build(),
+                        new AgentSkill.Builder()
+                                .id("evaluate_against_reference")
+                                .name("Reference-Based Scoring")
+                                .description("Scores candidates against a gold reference with ROUGE-L, BLEU, token F1 and BM25, optionally passing the best to the LLM judge")
+                                .tags(List.of("reference", "metrics", "filtering"))
+                                .examples(List.of("evaluate_against_reference reference='Paris is the capital' candidates=['Paris','Lyon'] filter={'metric':'rouge_l','top_k':1}"))
+                                .build(),
+                        new AgentSkill.Builder()
+                                .id("evaluate_conversation")
+                                .name("Conversation Evaluation")
+                                .description("Judges only the newly appended turns of a multi-turn conversation, with a running summary as context and incremental per-turn and aggregate scores")
+                                .tags(List.of("conversation", "multi-turn", "evaluation"))
+                                .examples(List.of("evaluate_conversation conversation_id='c1' turns=[{'role':'user','content':'Hi'},{'role':'assistant','content':'Hello!'}]"))
                                 .build()
                 ))
                 .protocolVersion("0.3.0")
-                .preferredTransport("JSONRPC")
+                .preferredTransport(TransportProtocol.JSONRPC.asString())
+                // The gRPC endpoint is the custom llmjudge.v1.JudgeService, not the A2A gRPC binding,
+                // so it is documented in the README rather than advertised here
+                .additionalInterfaces(List.of(
+                        new AgentInterface(TransportProtocol.JSONRPC.asString(), baseUrl)
+                ))
                 .build();
     }
 
@@ -106,6 +131,16 @@ public class AgentCardResource {
         );
     }
 
+    @GET
+    @Path("/ready")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response ready() {
+        // 503 until the boot warm-up has finished, so routers can hold traffic back
+        return Response.status(warmupService.isReady() ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE)
+            .entity(warmupService.getStatus())
+            .build();
+    }
+
     private String getBaseUrl() {
         try {
             // Get the base URL from the request
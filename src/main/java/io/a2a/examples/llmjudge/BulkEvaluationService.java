@@ -0,0 +1,311 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streams JSONL datasets of JSON-RPC requests through the regular method handlers. At most
+ * {@code concurrency} lines are read ahead of the writer, results are written in input order,
+ * and file runs keep a checkpoint so an interrupted run resumes where it stopped.
+ */
+@ApplicationScoped
+public class BulkEvaluationService {
+
+    private static final Logger log = Logger.getLogger(BulkEvaluationService.class);
+
+    @ConfigProperty(name = "bulk.max.concurrency", defaultValue = "16")
+    int maxConcurrency;
+
+    @ConfigProperty(name = "bulk.default.concurrency", defaultValue = "4")
+    int defaultConcurrency;
+
+    @ConfigProperty(name = "bulk.data.dir", defaultValue = "data/bulk")
+    String dataDir;
+
+    @ConfigProperty(name = "bulk.checkpoint.interval", defaultValue = "50")
+    int checkpointInterval;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile ExecutorService executor;
+
+    public int resolveConcurrency(Integer requested) {
+        int concurrency = requested != null && requested > 0 ? requested : defaultConcurrency;
+        return Math.min(concurrency, maxConcurrency);
+    }
+
+    /**
+     * Evaluates an uploaded JSONL stream, writing one JSON-RPC response per line to {@code output}.
+     * The first {@code skip} lines are ignored so clients can resume a partially received run.
+     */
+    public BulkSummary stream(InputStream input, OutputStream output, int concurrency, long skip,
+                              Function<Map<String, Object>, Map<String, Object>> handler) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        return run(reader, new CountingWriter(writer, 0), concurrency, skip, handler, null);
+    }
+
+    /**
+     * Evaluates a JSONL file under {@code bulk.data.dir}. Progress is checkpointed next to the output
+     * file; when {@code resume} is set and a checkpoint exists, already processed lines are skipped
+     * and the output is truncated to the last checkpointed position before appending.
+     */
+    public Map<String, Object> runFile(String inputName, String outputName, int concurrency, boolean resume,
+                                       Function<Map<String, Object>, Map<String, Object>> handler) {
+        Path base = Paths.get(dataDir).toAbsolutePath().normalize();
+        Path input = base.resolve(inputName).normalize();
+        Path output = base.resolve(outputName != null ? outputName : inputName + ".results.jsonl").normalize();
+        if (!input.startsWith(base) || !output.startsWith(base)) {
+            return Map.of("error", "Invalid input: files must be inside the bulk data directory", "error_code", "INVALID_INPUT");
+        }
+        if (!Files.isRegularFile(input)) {
+            return Map.of("error", "Invalid input: input file not found: " + inputName, "error_code", "INVALID_INPUT");
+        }
+        Path checkpoint = output.resolveSibling(output.getFileName() + ".checkpoint");
+
+        try {
+            Checkpoint start = resume && Files.exists(checkpoint) ? readCheckpoint(checkpoint) : new Checkpoint(0, 0);
+            if (start.lines() == 0) {
+                Files.deleteIfExists(output);
+            }
+            try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Drop results written after the last checkpoint; those lines are evaluated again
+                channel.truncate(start.outputBytes());
+            }
+
+            long started = System.currentTimeMillis();
+            BulkSummary summary;
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+                 Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+                CountingWriter counting = new CountingWriter(writer, start.outputBytes());
+                summary = run(reader, counting, concurrency, start.lines(), handler,
+                    (lines, bytes) -> writeCheckpoint(checkpoint, new Checkpoint(lines, bytes)));
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("input", inputName);
+            result.put("output", base.relativize(output).toString());
+            result.put("resumed_from_line", start.lines());
+            result.put("processed", summary.processed());
+            result.put("errors", summary.errors());
+            result.put("total_lines", summary.lastLine());
+            result.put("concurrency", concurrency);
+            result.put("elapsed_ms", System.currentTimeMillis() - started);
+            return result;
+        } catch (IOException e) {
+            log.error("Bulk evaluation of " + inputName + " failed: " + e.getMessage());
+            return Map.of("error", "Bulk evaluation failed: " + e.getMessage(), "error_code", "BULK_FAILED");
+        }
+    }
+
+    /**
+     * Runs a single evaluation on the bulk worker pool, for transports that manage their own
+     * windows of in-flight requests.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor());
+    }
+
+    private BulkSummary run(BufferedReader reader, CountingWriter writer, int concurrency, long skip,
+                            Function<Map<String, Object>, Map<String, Object>> handler,
+                            CheckpointListener checkpointListener) throws IOException {
+        Deque<CompletableFuture<LineResult>> window = new ArrayDeque<>();
+        long lineNumber = 0;
+        long processed = 0;
+        int errors = 0;
+        long sinceCheckpoint = 0;
+
+        String line;
+        while (true) {
+            // Backpressure: only read the next line once the window has room
+            while (window.size() >= concurrency) {
+                errors += writeResult(writer, window.removeFirst().join());
+                processed++;
+                if (checkpointListener != null && ++sinceCheckpoint >= checkpointInterval) {
+                    writer.flush();
+                    checkpointListener.onCheckpoint(skip + processed, writer.bytesWritten());
+                    sinceCheckpoint = 0;
+                }
+            }
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber++;
+            if (lineNumber <= skip || line.isBlank()) {
+                if (lineNumber > skip) {
+                    // Blank lines still count as processed so checkpoints stay aligned with line numbers
+                    window.addLast(CompletableFuture.completedFuture(null));
+                }
+                continue;
+            }
+            long currentLine = lineNumber;
+            String currentText = line;
+            window.addLast(CompletableFuture.supplyAsync(() -> evaluateLine(currentLine, currentText, handler), executor()));
+        }
+
+        while (!window.isEmpty()) {
+            errors += writeResult(writer, window.removeFirst().join());
+            processed++;
+        }
+        writer.flush();
+        if (checkpointListener != null) {
+            checkpointListener.onCheckpoint(skip + processed, writer.bytesWritten());
+        }
+        return new BulkSummary(processed, errors, lineNumber);
+    }
+
+    private LineResult evaluateLine(long lineNumber, String line, Function<Map<String, Object>, Map<String, Object>> handler) {
+        Map<String, Object> response;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> request = objectMapper.readValue(line, Map.class);
+            if (!request.containsKey("id")) {
+                request.put("id", lineNumber);
+            }
+            Object method = request.get("method");
+            if (!(method instanceof String) || ((String) method).startsWith("bulk.")) {
+                response = errorResponse(request.get("id"), -32600, "Invalid request on line " + lineNumber + ": missing or unsupported method");
+            } else {
+                response = handler.apply(request);
+            }
+        } catch (JsonProcessingException e) {
+            response = errorResponse(lineNumber, -32700, "Parse error on line " + lineNumber + ": " + e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            log.warn("Bulk line " + lineNumber + " failed: " + e.getMessage());
+            response = errorResponse(lineNumber, -32603, "Internal error on line " + lineNumber + ": " + e.getMessage());
+        }
+        try {
+            return new LineResult(objectMapper.writeValueAsString(response), isError(response));
+        } catch (IOException e) {
+            return new LineResult("{\"jsonrpc\":\"2.0\",\"error\":{\"code\":-32603,\"message\":\"Unserializable result\"},\"id\":" + lineNumber + "}", true);
+        }
+    }
+
+    // A protocol error, or a method result that reports one; text fields mentioning "error" do not count
+    private static boolean isError(Map<String, Object> response) {
+        return response.containsKey("error")
+            || response.get("result") instanceof Map<?, ?> result && result.containsKey("error");
+    }
+
+    // Returns 1 when the written line is an error response
+    private int writeResult(CountingWriter writer, LineResult line) throws IOException {
+        if (line == null) {
+            return 0;
+        }
+        writer.write(line.json());
+        writer.write("\n");
+        return line.error() ? 1 : 0;
+    }
+
+    private Map<String, Object> errorResponse(Object id, int code, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jsonrpc", "2.0");
+        response.put("error", Map.of("code", code, "message", message));
+        response.put("id", id);
+        return response;
+    }
+
+    private Checkpoint readCheckpoint(Path checkpoint) throws IOException {
+        Map<?, ?> map = objectMapper.readValue(checkpoint.toFile(), Map.class);
+        return new Checkpoint(((Number) map.get("lines")).longValue(), ((Number) map.get("output_bytes")).longValue());
+    }
+
+    private void writeCheckpoint(Path checkpoint, Checkpoint state) throws IOException {
+        // Write then rename so a crash never leaves a half-written checkpoint
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), Map.of("lines", state.lines(), "output_bytes", state.outputBytes()));
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+                        Thread thread = new Thread(runnable, "bulk-evaluation-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    public record BulkSummary(long processed, int errors, long lastLine) {
+    }
+
+    private record LineResult(String json, boolean error) {
+    }
+
+    private record Checkpoint(long lines, long outputBytes) {
+    }
+
+    private interface CheckpointListener {
+        void onCheckpoint(long lines, long outputBytes) throws IOException;
+    }
+
+    // Tracks the UTF-8 size of everything written so checkpoints can record an output offset
+    private static final class CountingWriter {
+        private final Writer delegate;
+        private long bytes;
+
+        CountingWriter(Writer delegate, long initialBytes) {
+            this.delegate = delegate;
+            this.bytes = initialBytes;
+        }
+
+        void write(String text) throws IOException {
+            delegate.write(text);
+            bytes += text.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        void flush() throws IOException {
+            delegate.flush();
+        }
+
+        long bytesWritten() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package io.a2a.examples.llmjudge;
+
+import org.apache.http.client.methods.HttpPost;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Owns the upstream requests issued on behalf of one task, such as a WebSocket request or one judge
+ * of an ensemble. {@link LLMService} registers every request with the handle current on its thread,
+ * so cancelling a handle aborts exactly the requests of that task and of its child handles, whichever
+ * pool threads they run on. Requests registered after cancellation are aborted straight away.
+ */
+final class CancelHandle {
+
+    private static final ThreadLocal<CancelHandle> CURRENT = new ThreadLocal<>();
+
+    private final CancelHandle parent;
+    private final Set<HttpPost> requests = new HashSet<>();
+    private final Set<CancelHandle> children = new HashSet<>();
+    private boolean cancelled;
+
+    CancelHandle() {
+        this(null);
+    }
+
+    private CancelHandle(CancelHandle parent) {
+        this.parent = parent;
+    }
+
+    static CancelHandle current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns a handle cancelled together with this one; {@link #close()} it once its task is over.
+     */
+    synchronized CancelHandle child() {
+        CancelHandle child = new CancelHandle(this);
+        if (cancelled) {
+            child.cancelled = true;
+        } else {
+            children.add(child);
+        }
+        return child;
+    }
+
+    /**
+     * Runs the task with this handle current on the calling thread.
+     */
+    <T> T run(Supplier<T> task) {
+        CancelHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Binds the task to this handle on whichever thread runs it.
+     */
+    <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            CancelHandle previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    private static void restore(CancelHandle previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    synchronized void register(HttpPost request) {
+        if (cancelled) {
+            request.abort();
+        } else {
+            requests.add(request);
+        }
+    }
+
+    synchronized void unregister(HttpPost request) {
+        requests.remove(request);
+    }
+
+    /**
+     * Aborts the requests of this handle and its children; returns false if it was already cancelled.
+     */
+    boolean cancel() {
+        List<HttpPost> pending;
+        List<CancelHandle> descendants;
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            pending = new ArrayList<>(requests);
+            descendants = new ArrayList<>(children);
+            requests.clear();
+            children.clear();
+        }
+        for (HttpPost request : pending) {
+            request.abort();
+        }
+        for (CancelHandle child : descendants) {
+            child.cancel();
+        }
+        return true;
+    }
+
+    /**
+     * Detaches a finished child handle from its parent.
+     */
+    void close() {
+        if (parent != null) {
+            synchronized (parent) {
+                parent.children.remove(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-conversation state for {@code evaluate_conversation}, so a growing transcript is judged one
+ * new turn at a time. A conversation keeps how many turns were seen, the user message awaiting an
+ * answer, a running score aggregate (count, sum, min, max, per-criterion sums) and an extractive
+ * summary of earlier exchanges that is handed to the judge as context: the opening exchange plus
+ * as many recent ones as fit in {@code conversation.summary.max.chars}.
+ *
+ * <p>Conversations are kept in least-recently-used order. Those idle longer than
+ * {@code conversation.idle.minutes} are dropped on the next access, and the least recently used
+ * are evicted while the estimated size exceeds {@code conversation.max.memory.mb}.
+ */
+@ApplicationScoped
+public class ConversationStore {
+
+    // Rough per-conversation overhead (object headers, map entry, aggregate fields)
+    private static final long BASE_BYTES = 512;
+    private static final int SUMMARY_CLIP_CHARS = 160;
+
+    @ConfigProperty(name = "conversation.max.memory.mb", defaultValue = "64")
+    int maxMemoryMb;
+
+    @ConfigProperty(name = "conversation.idle.minutes", defaultValue = "60")
+    int idleMinutes;
+
+    @ConfigProperty(name = "conversation.summary.max.chars", defaultValue = "1500")
+    int summaryMaxChars;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    // Access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @PostConstruct
+    void init() {
+        metrics.gauge("judge_conversations", "Conversations with cached evaluation state", this::size);
+    }
+
+    /**
+     * Returns the state of the conversation, creating it when unknown (or evicted).
+     */
+    public synchronized Conversation get(String id) {
+        evictIdle();
+        Conversation conversation = conversations.get(id);
+        if (conversation == null) {
+            conversation = new Conversation(id, summaryMaxChars);
+            conversation.bytes = conversation.estimateBytes();
+            conversations.put(id, conversation);
+            totalBytes += conversation.bytes;
+        }
+        conversation.lastAccess = System.currentTimeMillis();
+        return conversation;
+    }
+
+    /**
+     * Re-accounts a conversation after it changed and evicts least recently used ones over the bound.
+     */
+    public synchronized void update(Conversation conversation) {
+        if (conversations.get(conversation.id) != conversation) {
+            return;
+        }
+        long bytes = conversation.estimateBytes();
+        totalBytes += bytes - conversation.bytes;
+        conversation.bytes = bytes;
+        long maxBytes = (long) maxMemoryMb * 1024 * 1024;
+        Iterator<Conversation> eldest = conversations.values().iterator();
+        while (totalBytes > maxBytes && conversations.size() > 1 && eldest.hasNext()) {
+            Conversation evicted = eldest.next();
+            if (evicted == conversation) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= evicted.bytes;
+            metrics.counter("judge_conversation_evictions_total", "Conversation states evicted", "reason", "memory").increment();
+        }
+    }
+
+    public synchronized int size() {
+        return conversations.size();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMinutes * 60_000L;
+        Iterator<Conversation> eldest = conversations.values().iterator();
+        while (eldest.hasNext()) {
+            Conversation conversation = eldest.next();
+            if (conversation.lastAccess >= cutoff) {
+                break;
+            }
+            eldest.remove();
+            totalBytes -= conversation.bytes;
+            metrics.counter("judge_conversation_evictions_total", "Conversation states evicted", "reason", "idle").increment();
+        }
+    }
+
+    /**
+     * Evaluation state of one conversation. Callers hold the conversation's monitor while reading or
+     * changing it, so concurrent appends to the same conversation are applied one after the other.
+     */
+    public static final class Conversation {
+        private final String id;
+        private final int summaryMaxChars;
+        private int turns;
+        private String pendingUser;
+        private String opening;
+        private final Deque<String> recent = new ArrayDeque<>();
+        private int recentChars;
+        private boolean elided;
+        private float[] scores = new float[8];
+        private int judged;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        // criterion -> {sum, count}
+        private final Map<String, double[]> criteria = new TreeMap<>();
+        private long lastAccess;
+        private long bytes;
+
+        Conversation(String id, int summaryMaxChars) {
+            this.id = id;
+            this.summaryMaxChars = summaryMaxChars;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        /** Number of transcript turns seen so far; the next new turn has this index. */
+        public int turns() {
+            return turns;
+        }
+
+        public void advance() {
+            turns++;
+        }
+
+        public String pendingUser() {
+            return pendingUser;
+        }
+
+        public void setPendingUser(String content) {
+            pendingUser = content;
+        }
+
+        /** Opening exchange and the most recent ones, one line each; empty before the first judgement. */
+        public String summary() {
+            if (opening == null) {
+                return "";
+            }
+            StringBuilder summary = new StringBuilder(opening).append('\n');
+            if (elided) {
+                summary.append("...\n");
+            }
+            for (String line : recent) {
+                summary.append(line).append('\n');
+            }
+            return summary.toString();
+        }
+
+        /**
+         * Folds a judged exchange into the aggregate and the summary.
+         */
+        public void record(int turn, String user, String assistant, double score, Map<?, ?> criterionScores) {
+            if (judged == scores.length) {
+                scores = Arrays.copyOf(scores, judged * 2);
+            }
+            scores[judged++] = (float) score;
+            sum += score;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+            if (criterionScores != null) {
+                criterionScores.forEach((criterion, value) -> {
+                    if (value instanceof Number) {
+                        double[] entry = criteria.computeIfAbsent(String.valueOf(criterion), key -> new double[2]);
+                        entry[0] += ((Number) value).doubleValue();
+                        entry[1]++;
+                    }
+                });
+            }
+
+            String line = user != null
+                ? "Turn " + turn + " user: " + clip(user) + " | assistant: " + clip(assistant)
+                : "Turn " + turn + " assistant: " + clip(assistant);
+            if (opening == null) {
+                opening = line;
+                return;
+            }
+            recent.addLast(line);
+            recentChars += line.length() + 1;
+            while (recent.size() > 1 && opening.length() + recentChars > summaryMaxChars) {
+                recentChars -= recent.removeFirst().length() + 1;
+                elided = true;
+            }
+        }
+
+        /** Mean score over all judged turns, or null before the first judgement. */
+        public Double meanScore() {
+            return judged > 0 ? ScoreStats.round(sum / judged) : null;
+        }
+
+        /** Running aggregate over all judged turns. */
+        public Map<String, Object> aggregate() {
+            Map<String, Object> aggregate = new LinkedHashMap<>();
+            aggregate.put("turns", turns);
+            aggregate.put("judged_turns", judged);
+            if (judged > 0) {
+                aggregate.put("min_score", ScoreStats.round(min));
+                aggregate.put("max_score", ScoreStats.round(max));
+                aggregate.put("last_score", ScoreStats.round(scores[judged - 1]));
+                Map<String, Object> criterionMeans = new LinkedHashMap<>();
+                criteria.forEach((criterion, entry) -> criterionMeans.put(criterion, ScoreStats.round(entry[0] / entry[1])));
+                aggregate.put("criteria_means", criterionMeans);
+                double[] turnScores = new double[judged];
+                for (int i = 0; i < judged; i++) {
+                    turnScores[i] = ScoreStats.round(scores[i]);
+                }
+                aggregate.put("turn_scores", turnScores);
+            }
+            return aggregate;
+        }
+
+        private long estimateBytes() {
+            long chars = (opening != null ? opening.length() : 0) + recentChars + (pendingUser != null ? pendingUser.length() : 0);
+            return BASE_BYTES + id.length() * 2L + chars * 2 + scores.length * 4L + criteria.size() * 96L + recent.size() * 48L;
+        }
+
+        private static String clip(String text) {
+            String flat = text.replaceAll("\\s+", " ").trim();
+            return flat.length() > SUMMARY_CLIP_CHARS ? flat.substring(0, SUMMARY_CLIP_CHARS) + "..." : flat;
+        }
+    }
+}
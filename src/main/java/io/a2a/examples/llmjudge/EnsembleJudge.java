@@ -0,0 +1,265 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs several judges in parallel and aggregates their scores, stopping early once
+ * enough judges agree within the requested tolerance.
+ */
+@ApplicationScoped
+public class EnsembleJudge {
+
+    private static final Logger log = Logger.getLogger(EnsembleJudge.class);
+
+    @Inject
+    LLMService llmService;
+
+    @ConfigProperty(name = "ensemble.max.parallelism", defaultValue = "8")
+    int maxParallelism;
+
+    @ConfigProperty(name = "ensemble.max.judges", defaultValue = "9")
+    int maxJudges;
+
+    @ConfigProperty(name = "ensemble.timeout", defaultValue = "45")
+    int timeoutSeconds;
+
+    private volatile ExecutorService executor;
+
+    /**
+     * Parses the {@code ensemble} parameter: either a judge count or an object with
+     * {@code judges} (count or list of judge specs), {@code aggregation}, {@code tolerance}
+     * and {@code min_agreement}. Returns null when no ensemble was requested.
+     */
+    public EnsembleRequest parseRequest(Object ensembleParam) {
+        if (ensembleParam instanceof Number) {
+            return new EnsembleRequest(defaultJudges(((Number) ensembleParam).intValue()), "median", 1.0, 0);
+        }
+        if (!(ensembleParam instanceof Map)) {
+            return null;
+        }
+
+        Map<?, ?> map = (Map<?, ?>) ensembleParam;
+        List<JudgeSpec> judges = new ArrayList<>();
+        Object judgesObj = map.get("judges");
+        if (judgesObj instanceof Number) {
+            judges = defaultJudges(((Number) judgesObj).intValue());
+        } else if (judgesObj instanceof List) {
+            for (Object judgeObj : (List<?>) judgesObj) {
+                if (judgeObj instanceof Map) {
+                    judges.add(JudgeSpec.fromMap((Map<?, ?>) judgeObj));
+                }
+            }
+        }
+        if (judges.isEmpty()) {
+            judges = defaultJudges(3);
+        }
+        if (judges.size() > maxJudges) {
+            judges = judges.subList(0, maxJudges);
+        }
+
+        String aggregation = map.get("aggregation") instanceof String ? (String) map.get("aggregation") : "median";
+        double tolerance = map.get("tolerance") instanceof Number ? ((Number) map.get("tolerance")).doubleValue() : 1.0;
+        int minAgreement = map.get("min_agreement") instanceof Number ? ((Number) map.get("min_agreement")).intValue() : 0;
+        return new EnsembleRequest(judges, aggregation, tolerance, minAgreement);
+    }
+
+    /**
+     * Queries every judge in parallel and merges the results. {@code scoreField} names the headline
+     * score (e.g. overall_score) and {@code breakdownField}, when not null, a map of per-criterion scores
+     * that is aggregated key by key.
+     */
+    public Map<String, Object> evaluate(EnsembleRequest ensemble, String scoreField, String breakdownField,
+                                        Function<JudgeSpec, Map<String, Object>> judgeCall) {
+        List<JudgeSpec> judges = ensemble.judges();
+        // Default quorum is a strict majority of the ensemble
+        int quorum = ensemble.minAgreement() > 0 ? Math.min(ensemble.minAgreement(), judges.size()) : judges.size() / 2 + 1;
+
+        EvaluationContext context = EvaluationContext.current();
+        ExecutorCompletionService<JudgeOutcome> completion = new ExecutorCompletionService<>(executor());
+        List<Future<JudgeOutcome>> futures = new ArrayList<>();
+        // Each judge owns a handle so a straggler's upstream call can be aborted without touching
+        // whatever its pool thread runs next; a cancelled caller cancels all of them
+        CancelHandle caller = CancelHandle.current();
+        List<CancelHandle> handles = new ArrayList<>();
+        for (int i = 0; i < judges.size(); i++) {
+            JudgeSpec judge = judges.get(i);
+            int index = i;
+            CancelHandle handle = caller != null ? caller.child() : new CancelHandle();
+            handles.add(handle);
+            Callable<JudgeOutcome> task = handle.wrap(() -> new JudgeOutcome(index, judgeCall.apply(judge)));
+            futures.add(completion.submit(context != null ? context.wrap(task) : task));
+        }
+
+        List<JudgeOutcome> outcomes = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        List<Map<String, Object>> failed = new ArrayList<>();
+        boolean earlyStopped = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        try {
+            for (int received = 0; received < judges.size(); received++) {
+                long remaining = deadline - System.nanoTime();
+                Future<JudgeOutcome> done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (done == null) {
+                    log.warn("Ensemble timed out after " + outcomes.size() + " of " + judges.size() + " judges");
+                    break;
+                }
+                try {
+                    JudgeOutcome outcome = done.get();
+                    // A judge whose upstream call failed returns a heuristic stand-in; it must not vote
+                    if (LLMService.isFallback(outcome.result())) {
+                        failed.add(failure(judges.get(outcome.index()), "upstream call failed"));
+                        continue;
+                    }
+                    Double score = numeric(outcome.result().get(scoreField));
+                    if (score == null) {
+                        failed.add(failure(judges.get(outcome.index()), "no " + scoreField + " in the result"));
+                        continue;
+                    }
+                    outcomes.add(outcome);
+                    scores.add(score);
+                } catch (Exception e) {
+                    log.warn("Ensemble judge failed: " + e.getMessage());
+                    failed.add(Map.of("error", String.valueOf(e.getCause() != null ? e.getCause().getMessage() : e.getMessage())));
+                    continue;
+                }
+                if (received + 1 < judges.size() && ScoreStats.hasQuorum(scores, quorum, ensemble.tolerance())) {
+                    earlyStopped = true;
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int cancelled = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            Future<JudgeOutcome> future = futures.get(i);
+            if (!future.isDone()) {
+                handles.get(i).cancel();
+                future.cancel(true);
+                cancelled++;
+            }
+            handles.get(i).close();
+        }
+
+        if (outcomes.isEmpty()) {
+            return Map.of(
+                "error", "Ensemble evaluation failed: no judge returned a score",
+                "error_code", "ENSEMBLE_FAILED",
+                "judges_failed", failed
+            );
+        }
+
+        double aggregate = ScoreStats.aggregate(scores, ensemble.aggregation());
+
+        // Keep the textual feedback of the judge closest to the aggregate score
+        JudgeOutcome representative = outcomes.get(0);
+        for (int i = 1; i < outcomes.size(); i++) {
+            if (Math.abs(scores.get(i) - aggregate) < Math.abs(numeric(representative.result().get(scoreField)) - aggregate)) {
+                representative = outcomes.get(i);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>(representative.result());
+        result.put(scoreField, ScoreStats.round(aggregate));
+        if (breakdownField != null) {
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (JudgeOutcome outcome : outcomes) {
+                results.add(outcome.result());
+            }
+            result.put(breakdownField, ScoreStats.aggregateBreakdown(results, breakdownField, ensemble.aggregation()));
+        }
+
+        List<Map<String, Object>> judgeScores = new ArrayList<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            Map<String, Object> entry = new HashMap<>(judges.get(outcomes.get(i).index())
+                .describe(llmService.getModel(), llmService.getTemperature()));
+            entry.put("score", scores.get(i));
+            judgeScores.add(entry);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("aggregation", ensemble.aggregation());
+        summary.put("judges_requested", judges.size());
+        summary.put("judges_completed", outcomes.size());
+        summary.put("judges_cancelled", cancelled);
+        summary.put("judges_failed", failed);
+        summary.put("early_stopped", earlyStopped);
+        summary.put("quorum", quorum);
+        summary.put("tolerance", ensemble.tolerance());
+        summary.put("variance", ScoreStats.round(ScoreStats.variance(scores)));
+        summary.put("stddev", ScoreStats.round(Math.sqrt(ScoreStats.variance(scores))));
+        summary.put("judge_scores", judgeScores);
+        result.put("ensemble", summary);
+        return result;
+    }
+
+    private Map<String, Object> failure(JudgeSpec judge, String reason) {
+        Map<String, Object> entry = new HashMap<>(judge.describe(llmService.getModel(), llmService.getTemperature()));
+        entry.put("error", reason);
+        return entry;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<JudgeSpec> defaultJudges(int count) {
+        // Vary temperature and prompt wording so the judges are not identical
+        String[] variants = {"default", "strict", "lenient"};
+        int size = Math.max(1, Math.min(count, maxJudges));
+        List<JudgeSpec> judges = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            double temperature = Math.min(1.0, llmService.getTemperature() + 0.2 * (i / variants.length));
+            judges.add(new JudgeSpec(null, temperature, variants[i % variants.length]));
+        }
+        return judges;
+    }
+
+    private static Double numeric(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(maxParallelism, runnable -> {
+                        Thread thread = new Thread(runnable, "ensemble-judge-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
+    }
+
+    public record EnsembleRequest(List<JudgeSpec> judges, String aggregation, double tolerance, int minAgreement) {
+    }
+
+    private record JudgeOutcome(int index, Map<String, Object> result) {
+    }
+}
@@ -0,0 +1,203 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-request state shared between the JSON-RPC handler and the services it calls. Bound to the
+ * handling thread; work handed to other threads must be wrapped with {@link #wrap(Callable)}.
+ */
+public final class EvaluationContext {
+
+    private static final ThreadLocal<EvaluationContext> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final long startNanos = System.nanoTime();
+    private final long startEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    private final Queue<Phase> phases = new ConcurrentLinkedQueue<>();
+    private volatile long receivedNanos;
+    private volatile boolean upstreamCalled;
+    private volatile boolean fallback;
+    private volatile String outcome;
+    private volatile String traceParent;
+    private volatile String priority = UpstreamScheduler.INTERACTIVE;
+    private volatile String tenant = UsageLedger.ANONYMOUS;
+    private final AtomicLong llmCalls = new AtomicLong();
+    private final AtomicLong promptTokens = new AtomicLong();
+    private final AtomicLong completionTokens = new AtomicLong();
+    private final AtomicLong cachedTokens = new AtomicLong();
+
+    private EvaluationContext(String method) {
+        this.method = method;
+        this.receivedNanos = startNanos;
+    }
+
+    /**
+     * Records a phase on the current thread's context, from {@code phaseStartNanos} until now.
+     * A no-op outside a request, so services can call it unconditionally.
+     */
+    public static void recordPhase(String name, long phaseStartNanos) {
+        EvaluationContext context = CURRENT.get();
+        if (context != null) {
+            context.addPhase(name, phaseStartNanos, System.nanoTime());
+        }
+    }
+
+    public static EvaluationContext begin(String method) {
+        EvaluationContext context = new EvaluationContext(method);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static EvaluationContext current() {
+        return CURRENT.get();
+    }
+
+    public void end() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        // Upstream calls of the task stay cancellable through the submitting thread's handle
+        CancelHandle handle = CancelHandle.current();
+        Callable<T> inner = handle != null ? handle.wrap(task) : task;
+        return () -> {
+            EvaluationContext previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return inner.call();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void markUpstreamCall() {
+        upstreamCalled = true;
+    }
+
+    public boolean isUpstreamCalled() {
+        return upstreamCalled;
+    }
+
+    public void markFallback() {
+        fallback = true;
+    }
+
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    public void addPhase(String name, long phaseStartNanos, long phaseEndNanos) {
+        phases.add(new Phase(name, phaseStartNanos, phaseEndNanos));
+    }
+
+    public List<Phase> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    /**
+     * Milliseconds per phase, in first-seen order. Phases that ran more than once (ensemble judges,
+     * retries) are summed, so the values can exceed wall-clock time.
+     */
+    public Map<String, Double> phaseMillis() {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Phase phase : phases) {
+            totals.merge(phase.name(), (phase.endNanos() - phase.startNanos()) / 1e6, Double::sum);
+        }
+        return totals;
+    }
+
+    /**
+     * Marks when the HTTP request arrived, before the body was read and decoded.
+     */
+    public void setReceivedNanos(long receivedNanos) {
+        this.receivedNanos = receivedNanos;
+        addPhase("parse", receivedNanos, startNanos);
+    }
+
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    public long toEpochNanos(long nanos) {
+        return startEpochNanos + (nanos - startNanos);
+    }
+
+    public String getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    public String getTraceParent() {
+        return traceParent;
+    }
+
+    public void setTraceParent(String traceParent) {
+        this.traceParent = traceParent;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * Adds the {@code usage} block of one upstream call; ensemble judges and samples accumulate here.
+     */
+    public void addUsage(long prompt, long completion, long cached) {
+        llmCalls.incrementAndGet();
+        promptTokens.addAndGet(prompt);
+        completionTokens.addAndGet(completion);
+        cachedTokens.addAndGet(cached);
+    }
+
+    public long getLlmCalls() {
+        return llmCalls.get();
+    }
+
+    public long getPromptTokens() {
+        return promptTokens.get();
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens.get();
+    }
+
+    public long getCachedTokens() {
+        return cachedTokens.get();
+    }
+
+    public record Phase(String name, long startNanos, long endNanos) {
+    }
+}
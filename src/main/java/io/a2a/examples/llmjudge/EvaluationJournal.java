@@ -0,0 +1,422 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of every evaluation. Records are fixed-size binary entries written into
+ * memory-mapped segment files; queries scan the mapped segments directly instead of loading
+ * records onto the heap, skipping segments whose time range does not overlap the filter. At most
+ * {@code journal.max.segments} segments are kept; the oldest are deleted when a new one is opened.
+ */
+@ApplicationScoped
+public class EvaluationJournal {
+
+    private static final Logger log = Logger.getLogger(EvaluationJournal.class);
+
+    // Method codes are persisted, so new methods must only ever be appended
+    static final List<String> METHODS = List.of(
+        "unknown",
+        "evaluate_response",
+        "score_quality",
+        "check_factual_accuracy",
+        "assess_relevance",
+        "compare_responses",
+        "evaluate_against_reference",
+        "evaluate_conversation"
+    );
+
+    static final int FLAG_ERROR = 1;
+    static final int FLAG_CACHED = 1 << 1;
+    static final int FLAG_LLM = 1 << 2;
+    static final int FLAG_FALLBACK = 1 << 3;
+
+    private static final int MAGIC = 0x4A524E4C; // "JRNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int MODEL_BYTES = 32;
+    // timestamp, inputs hash, method, flags, reserved, latency, model, score, 3 token counts, padding
+    static final int RECORD_SIZE = 80;
+
+    private static final int MAX_RECORDS_RETURNED = 1000;
+
+    @ConfigProperty(name = "journal.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "journal.dir", defaultValue = "data/journal")
+    String directory;
+
+    @ConfigProperty(name = "journal.segment.size.mb", defaultValue = "16")
+    int segmentSizeMb;
+
+    @ConfigProperty(name = "journal.max.segments", defaultValue = "8")
+    int maxSegments;
+
+    private Path journalDir;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeSegment;
+    private int activeSequence;
+    private int activeCount;
+    private int recordsPerSegment;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journalDir = Paths.get(directory);
+            Files.createDirectories(journalDir);
+            recordsPerSegment = (segmentSizeMb * 1024 * 1024 - HEADER_SIZE) / RECORD_SIZE;
+            List<Path> segments = listSegments();
+            if (segments.isEmpty()) {
+                openSegment(0);
+            } else {
+                openSegment(sequenceOf(segments.get(segments.size() - 1)));
+            }
+            enforceRetention();
+            log.info("Evaluation journal at " + journalDir.toAbsolutePath() + " (" + segments.size() + " existing segments)");
+        } catch (IOException e) {
+            log.error("Evaluation journal disabled, could not open " + directory + ": " + e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void append(JournalRecord record) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (activeCount >= recordsPerSegment) {
+                activeSegment.force();
+                activeChannel.close();
+                openSegment(activeSequence + 1);
+                enforceRetention();
+            }
+            int position = HEADER_SIZE + activeCount * RECORD_SIZE;
+            activeSegment.putLong(position, record.timestamp());
+            activeSegment.putLong(position + 8, record.inputsHash());
+            activeSegment.put(position + 16, (byte) methodCode(record.method()));
+            activeSegment.put(position + 17, (byte) record.flags());
+            activeSegment.putInt(position + 20, (int) Math.min(Integer.MAX_VALUE, record.latencyMicros()));
+            byte[] model = truncate(record.model());
+            for (int i = 0; i < MODEL_BYTES; i++) {
+                activeSegment.put(position + 24 + i, i < model.length ? model[i] : 0);
+            }
+            activeSegment.putDouble(position + 56, record.score());
+            activeSegment.putInt(position + 64, record.promptTokens());
+            activeSegment.putInt(position + 68, record.completionTokens());
+            activeSegment.putInt(position + 72, record.cachedTokens());
+
+            // Publish the record only after it is fully written
+            activeCount++;
+            activeSegment.putInt(12, activeCount);
+            if (activeCount == 1) {
+                activeSegment.putLong(16, record.timestamp());
+            }
+            activeSegment.putLong(24, record.timestamp());
+        } catch (IOException e) {
+            log.error("Failed to append to evaluation journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans journal segments for records in [from, to) matching the optional method filter and returns
+     * overall and per-method aggregates plus the most recent matching records (at most {@code limit}).
+     */
+    public Map<String, Object> query(long from, long to, String method, int limit) {
+        if (!enabled) {
+            return Map.of("error", "Evaluation journal is disabled", "error_code", "JOURNAL_DISABLED");
+        }
+
+        int methodFilter = method != null ? METHODS.indexOf(method) : -1;
+        if (method != null && methodFilter < 0) {
+            return Map.of("error", "Invalid input: unknown method " + method, "error_code", "INVALID_INPUT");
+        }
+        int recentLimit = Math.max(0, Math.min(limit, MAX_RECORDS_RETURNED));
+
+        Aggregate overall = new Aggregate();
+        Map<String, Aggregate> byMethod = new TreeMap<>();
+        Deque<Map<String, Object>> recent = new ArrayDeque<>();
+        int segmentsScanned = 0;
+
+        try {
+            for (Path segment : listSegments()) {
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (buffer.getInt(0) != MAGIC) {
+                        continue;
+                    }
+                    int count = buffer.getInt(12);
+                    if (count == 0 || buffer.getLong(24) < from || buffer.getLong(16) >= to) {
+                        continue;
+                    }
+                    segmentsScanned++;
+                    for (int i = 0; i < count; i++) {
+                        int position = HEADER_SIZE + i * RECORD_SIZE;
+                        long timestamp = buffer.getLong(position);
+                        if (timestamp < from || timestamp >= to) {
+                            continue;
+                        }
+                        int code = buffer.get(position + 16);
+                        if (methodFilter >= 0 && code != methodFilter) {
+                            continue;
+                        }
+                        int flags = buffer.get(position + 17);
+                        int latencyMicros = buffer.getInt(position + 20);
+                        double score = buffer.getDouble(position + 56);
+                        int promptTokens = buffer.getInt(position + 64);
+                        int completionTokens = buffer.getInt(position + 68);
+                        int cachedTokens = buffer.getInt(position + 72);
+
+                        String methodName = code >= 0 && code < METHODS.size() ? METHODS.get(code) : "unknown";
+                        overall.add(flags, latencyMicros, score, promptTokens, completionTokens, cachedTokens);
+                        byMethod.computeIfAbsent(methodName, k -> new Aggregate())
+                            .add(flags, latencyMicros, score, promptTokens, completionTokens, cachedTokens);
+
+                        if (recentLimit > 0) {
+                            if (recent.size() == recentLimit) {
+                                recent.removeFirst();
+                            }
+                            Map<String, Object> record = new LinkedHashMap<>();
+                            record.put("timestamp", timestamp);
+                            record.put("method", methodName);
+                            record.put("inputs_hash", Long.toHexString(buffer.getLong(position + 8)));
+                            record.put("model", readModel(buffer, position + 24));
+                            record.put("score", Double.isNaN(score) ? null : score);
+                            record.put("latency_ms", latencyMicros / 1000.0);
+                            record.put("error", (flags & FLAG_ERROR) != 0);
+                            record.put("cached", (flags & FLAG_CACHED) != 0);
+                            record.put("fallback", (flags & FLAG_FALLBACK) != 0);
+                            record.put("prompt_tokens", promptTokens);
+                            record.put("completion_tokens", completionTokens);
+                            record.put("cached_tokens", cachedTokens);
+                            recent.addLast(record);
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // Deleted by retention since it was listed
+                }
+            }
+        } catch (IOException e) {
+            log.error("Evaluation journal query failed: " + e.getMessage());
+            return Map.of("error", "Journal query failed: " + e.getMessage(), "error_code", "JOURNAL_ERROR");
+        }
+
+        Map<String, Object> methods = new LinkedHashMap<>();
+        for (Map.Entry<String, Aggregate> entry : byMethod.entrySet()) {
+            methods.put(entry.getKey(), entry.getValue().toMap());
+        }
+        List<Map<String, Object>> records = new ArrayList<>(recent);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from);
+        result.put("to", to);
+        result.put("segments_scanned", segmentsScanned);
+        result.put("stats", overall.toMap());
+        result.put("by_method", methods);
+        result.put("records", records);
+        return result;
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeSegment.force();
+            activeChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close evaluation journal: " + e.getMessage());
+        }
+    }
+
+    private void openSegment(int sequence) throws IOException {
+        Path path = journalDir.resolve(String.format("journal-%08d.seg", sequence));
+        boolean created = !Files.exists(path);
+        activeChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+        activeSequence = sequence;
+        if (created || activeSegment.getInt(0) != MAGIC) {
+            activeSegment.putInt(0, MAGIC);
+            activeSegment.putInt(4, VERSION);
+            activeSegment.putInt(8, RECORD_SIZE);
+            activeSegment.putInt(12, 0);
+            activeSegment.putLong(16, 0L);
+            activeSegment.putLong(24, 0L);
+            activeCount = 0;
+        } else {
+            activeCount = activeSegment.getInt(12);
+        }
+    }
+
+    // Deletes the oldest segments beyond journal.max.segments; the active segment is always kept
+    private void enforceRetention() throws IOException {
+        if (maxSegments <= 0) {
+            return;
+        }
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size() - Math.max(1, maxSegments); i++) {
+            Path segment = segments.get(i);
+            if (sequenceOf(segment) == activeSequence) {
+                continue;
+            }
+            Files.deleteIfExists(segment);
+            log.info("Deleted journal segment " + segment.getFileName() + " (journal.max.segments=" + maxSegments + ")");
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files
+                .filter(path -> path.getFileName().toString().matches("journal-\\d{8}\\.seg"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static int sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring("journal-".length(), name.length() - ".seg".length()));
+    }
+
+    private static int methodCode(String method) {
+        int code = METHODS.indexOf(method);
+        return code < 0 ? 0 : code;
+    }
+
+    private static byte[] truncate(String model) {
+        byte[] bytes = (model != null ? model : "").getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MODEL_BYTES) {
+            return bytes;
+        }
+        byte[] truncated = new byte[MODEL_BYTES];
+        System.arraycopy(bytes, 0, truncated, 0, MODEL_BYTES);
+        return truncated;
+    }
+
+    private static String readModel(MappedByteBuffer buffer, int position) {
+        byte[] bytes = new byte[MODEL_BYTES];
+        int length = 0;
+        while (length < MODEL_BYTES && buffer.get(position + length) != 0) {
+            bytes[length] = buffer.get(position + length);
+            length++;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public record JournalRecord(long timestamp, long inputsHash, String method, int flags, long latencyMicros,
+                                String model, double score, int promptTokens, int completionTokens, int cachedTokens) {
+    }
+
+    // Constant-memory running statistics; latency percentiles come from log-scale buckets
+    private static final class Aggregate {
+        private static final int BUCKETS = 128;
+
+        long count;
+        long errors;
+        long cached;
+        long fallbacks;
+        long scored;
+        double scoreSum;
+        double scoreMin = Double.MAX_VALUE;
+        double scoreMax = -Double.MAX_VALUE;
+        long latencySumMicros;
+        long promptTokens;
+        long completionTokens;
+        long cachedTokens;
+        final long[] latencyBuckets = new long[BUCKETS];
+
+        void add(int flags, int latencyMicros, double score, int prompt, int completion, int cachedPrompt) {
+            count++;
+            if ((flags & FLAG_ERROR) != 0) errors++;
+            if ((flags & FLAG_CACHED) != 0) cached++;
+            if ((flags & FLAG_FALLBACK) != 0) fallbacks++;
+            if (!Double.isNaN(score)) {
+                scored++;
+                scoreSum += score;
+                scoreMin = Math.min(scoreMin, score);
+                scoreMax = Math.max(scoreMax, score);
+            }
+            latencySumMicros += latencyMicros;
+            latencyBuckets[bucketOf(latencyMicros)]++;
+            promptTokens += prompt;
+            completionTokens += completion;
+            cachedTokens += cachedPrompt;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("errors", errors);
+            map.put("cached", cached);
+            map.put("fallbacks", fallbacks);
+            map.put("score_mean", scored > 0 ? ScoreStats.round(scoreSum / scored) : null);
+            map.put("score_min", scored > 0 ? scoreMin : null);
+            map.put("score_max", scored > 0 ? scoreMax : null);
+            map.put("latency_mean_ms", count > 0 ? ScoreStats.round(latencySumMicros / 1000.0 / count) : null);
+            map.put("latency_p50_ms", percentileMillis(0.50));
+            map.put("latency_p95_ms", percentileMillis(0.95));
+            map.put("latency_p99_ms", percentileMillis(0.99));
+            map.put("prompt_tokens", promptTokens);
+            map.put("completion_tokens", completionTokens);
+            map.put("cached_tokens", cachedTokens);
+            return map;
+        }
+
+        // Four buckets per power of two: relative error of a reported percentile stays under ~19%
+        private static int bucketOf(int micros) {
+            if (micros <= 1) return 0;
+            int log2 = 31 - Integer.numberOfLeadingZeros(micros);
+            int quarter = (int) (((long) micros << 2 >> log2) & 3);
+            return Math.min(BUCKETS - 1, (log2 - 1) * 4 + quarter + 1);
+        }
+
+        private static double bucketUpperMillis(int bucket) {
+            if (bucket == 0) return 0.001;
+            int log2 = (bucket - 1) / 4 + 1;
+            int quarter = (bucket - 1) % 4;
+            return ((1L << log2) + (quarter + 1) * (1L << log2) / 4.0) / 1000.0;
+        }
+
+        private Double percentileMillis(double percentile) {
+            if (count == 0) return null;
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += latencyBuckets[i];
+                if (seen >= rank) {
+                    return ScoreStats.round(bucketUpperMillis(i));
+                }
+            }
+            return ScoreStats.round(bucketUpperMillis(BUCKETS - 1));
+        }
+    }
+}
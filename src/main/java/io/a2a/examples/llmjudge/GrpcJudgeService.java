@@ -0,0 +1,255 @@
+package io.a2a.examples.llmjudge;
+
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.a2a.examples.llmjudge.grpc.BulkResult;
+import io.a2a.examples.llmjudge.grpc.BulkUpdate;
+import io.a2a.examples.llmjudge.grpc.Error;
+import io.a2a.examples.llmjudge.grpc.EvaluateBatch;
+import io.a2a.examples.llmjudge.grpc.EvaluateRequest;
+import io.a2a.examples.llmjudge.grpc.EvaluateResponse;
+import io.a2a.examples.llmjudge.grpc.JudgeServiceGrpc;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.quarkus.grpc.GrpcService;
+import io.smallrye.common.annotation.Blocking;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * gRPC transport for the evaluation methods (see {@code src/main/proto/judge.proto}). Requests are
+ * turned into JSON-RPC requests and run through the same handlers as {@code /jsonrpc}, so caching,
+ * scheduling, budgets, the journal and metrics behave identically. Unary calls are interactive;
+ * streamed batches and bulk submissions default to the bulk class and run on the bulk worker pool,
+ * holding at most {@code concurrency} evaluations in flight.
+ */
+@GrpcService
+@Blocking
+public class GrpcJudgeService extends JudgeServiceGrpc.JudgeServiceImplBase {
+
+    private static final Logger log = Logger.getLogger(GrpcJudgeService.class);
+
+    @Inject
+    JsonRpcResource jsonRpcResource;
+
+    @Inject
+    BulkEvaluationService bulkEvaluationService;
+
+    @Inject
+    UpstreamScheduler scheduler;
+
+    @Inject
+    UsageLedger usageLedger;
+
+    @Override
+    public void evaluate(EvaluateRequest request, StreamObserver<EvaluateResponse> observer) {
+        observer.onNext(invoke(request, 0, tenant(), priority(UpstreamScheduler.INTERACTIVE)));
+        observer.onCompleted();
+    }
+
+    @Override
+    public void evaluateStream(EvaluateBatch batch, StreamObserver<EvaluateResponse> observer) {
+        ServerCallStreamObserver<EvaluateResponse> call = (ServerCallStreamObserver<EvaluateResponse>) observer;
+        String tenant = tenant();
+        String priority = priority(UpstreamScheduler.BULK);
+        Semaphore window = new Semaphore(bulkEvaluationService.resolveConcurrency(batch.getConcurrency()));
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        try {
+            for (int i = 0; i < batch.getRequestsCount() && !call.isCancelled(); i++) {
+                window.acquire();
+                EvaluateRequest request = batch.getRequests(i);
+                long index = i;
+                pending.add(bulkEvaluationService.submit(() -> invoke(request, index, tenant, priority))
+                    .thenAccept(response -> {
+                        // Responses complete on several workers; the observer is not thread-safe
+                        synchronized (call) {
+                            if (!call.isCancelled()) {
+                                call.onNext(response);
+                            }
+                        }
+                    })
+                    .whenComplete((ignored, error) -> window.release()));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!call.isCancelled()) {
+            call.onCompleted();
+        }
+    }
+
+    @Override
+    public StreamObserver<EvaluateRequest> submitBulk(StreamObserver<BulkUpdate> observer) {
+        ServerCallStreamObserver<BulkUpdate> call = (ServerCallStreamObserver<BulkUpdate>) observer;
+        String tenant = tenant();
+        String priority = priority(UpstreamScheduler.BULK);
+        Semaphore window = new Semaphore(bulkEvaluationService.resolveConcurrency(null));
+        long started = System.currentTimeMillis();
+        // Results are streamed as they complete, so only counters outlive a request however long the stream
+        AtomicLong submitted = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        Set<CompletableFuture<Void>> running = ConcurrentHashMap.newKeySet();
+        // One per running request plus one for the client's half of the stream; the summary goes out at zero
+        AtomicInteger outstanding = new AtomicInteger(1);
+        Runnable finish = () -> {
+            if (outstanding.decrementAndGet() == 0) {
+                BulkResult summary = BulkResult.newBuilder()
+                    .setProcessed(submitted.get())
+                    .setErrors(errors.get())
+                    .setElapsedMs(System.currentTimeMillis() - started)
+                    .build();
+                synchronized (call) {
+                    if (!call.isCancelled()) {
+                        call.onNext(BulkUpdate.newBuilder().setSummary(summary).build());
+                        call.onCompleted();
+                    }
+                }
+            }
+        };
+
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(EvaluateRequest request) {
+                // Blocking here stops reading the client stream until a slot frees up
+                window.acquireUninterruptibly();
+                long index = submitted.getAndIncrement();
+                outstanding.incrementAndGet();
+                CompletableFuture<Void> result = bulkEvaluationService.submit(() -> invoke(request, index, tenant, priority))
+                    .thenAccept(response -> {
+                        if (response.hasError() || response.getResult().containsFields("error")) {
+                            errors.incrementAndGet();
+                        }
+                        // Responses complete on several workers; the observer is not thread-safe
+                        synchronized (call) {
+                            if (!call.isCancelled()) {
+                                call.onNext(BulkUpdate.newBuilder().setResult(response).build());
+                            }
+                        }
+                    });
+                running.add(result);
+                result.whenComplete((ignored, error) -> {
+                    running.remove(result);
+                    window.release();
+                    finish.run();
+                });
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                log.debug("gRPC bulk submission aborted by the client: " + error.getMessage());
+                running.forEach(result -> result.cancel(false));
+            }
+
+            @Override
+            public void onCompleted() {
+                finish.run();
+            }
+        };
+    }
+
+    private EvaluateResponse invoke(EvaluateRequest request, long index, String tenant, String priority) {
+        EvaluateResponse.Builder response = EvaluateResponse.newBuilder().setId(request.getId()).setIndex(index);
+        // Protocol methods read HTTP request state, so only the evaluations are exposed here
+        if (!EvaluationJournal.METHODS.contains(request.getMethod()) || "unknown".equals(request.getMethod())) {
+            return response.setError(error(-32601, "Method not found: " + request.getMethod())).build();
+        }
+
+        Map<String, Object> rpcRequest = new HashMap<>();
+        rpcRequest.put("jsonrpc", "2.0");
+        rpcRequest.put("method", request.getMethod());
+        rpcRequest.put("params", toMap(request.getParams()));
+        rpcRequest.put("id", request.getId());
+        try {
+            Map<String, Object> rpcResponse = jsonRpcResource.handleRequest(rpcRequest, tenant, priority);
+            if (rpcResponse.get("error") instanceof Map<?, ?> rpcError) {
+                int code = rpcError.get("code") instanceof Number ? ((Number) rpcError.get("code")).intValue() : -32603;
+                return response.setError(error(code, String.valueOf(rpcError.get("message")))).build();
+            }
+            return response.setResult(toValue(rpcResponse.get("result")).getStructValue()).build();
+        } catch (RuntimeException e) {
+            log.warn("gRPC " + request.getMethod() + " failed: " + e.getMessage());
+            return response.setError(error(-32603, "Internal error: " + e.getMessage())).build();
+        }
+    }
+
+    private String tenant() {
+        return usageLedger.resolveTenant(GrpcSecurityInterceptor.API_KEY.get(), GrpcSecurityInterceptor.CLIENT_ADDRESS.get());
+    }
+
+    private String priority(String defaultClass) {
+        return scheduler.classify(GrpcSecurityInterceptor.PRIORITY.get(), GrpcSecurityInterceptor.API_KEY.get(), defaultClass);
+    }
+
+    private static Error error(int code, String message) {
+        return Error.newBuilder().setCode(code).setMessage(message).build();
+    }
+
+    static Map<String, Object> toMap(Struct struct) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        struct.getFieldsMap().forEach((key, value) -> map.put(key, fromValue(value)));
+        return map;
+    }
+
+    // Struct numbers are doubles; whole numbers come back as Integer/Long like Jackson would parse them
+    private static Object fromValue(Value value) {
+        switch (value.getKindCase()) {
+            case STRUCT_VALUE:
+                return toMap(value.getStructValue());
+            case LIST_VALUE:
+                List<Object> list = new ArrayList<>();
+                value.getListValue().getValuesList().forEach(item -> list.add(fromValue(item)));
+                return list;
+            case STRING_VALUE:
+                return value.getStringValue();
+            case BOOL_VALUE:
+                return value.getBoolValue();
+            case NUMBER_VALUE:
+                double number = value.getNumberValue();
+                if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                    long whole = (long) number;
+                    return whole == (int) whole ? (Object) (int) whole : (Object) whole;
+                }
+                return number;
+            default:
+                return null;
+        }
+    }
+
+    static Value toValue(Object object) {
+        if (object instanceof Map<?, ?> map) {
+            Struct.Builder struct = Struct.newBuilder();
+            map.forEach((key, value) -> struct.putFields(String.valueOf(key), toValue(value)));
+            return Value.newBuilder().setStructValue(struct).build();
+        }
+        if (object instanceof Iterable<?> iterable) {
+            ListValue.Builder list = ListValue.newBuilder();
+            iterable.forEach(item -> list.addValues(toValue(item)));
+            return Value.newBuilder().setListValue(list).build();
+        }
+        if (object instanceof Number number) {
+            return Value.newBuilder().setNumberValue(number.doubleValue()).build();
+        }
+        if (object instanceof Boolean bool) {
+            return Value.newBuilder().setBoolValue(bool).build();
+        }
+        if (object == null) {
+            return Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+        }
+        return Value.newBuilder().setStringValue(String.valueOf(object)).build();
+    }
+}
@@ -0,0 +1,71 @@
+package io.a2a.examples.llmjudge;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.quarkus.grpc.GlobalInterceptor;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Applies the {@code /jsonrpc} API key and rate limit rules to gRPC calls and exposes the caller's key, priority
+ * header and address to the service through the gRPC {@link Context}.
+ */
+@GlobalInterceptor
+@ApplicationScoped
+public class GrpcSecurityInterceptor implements ServerInterceptor {
+
+    private static final Logger log = Logger.getLogger(GrpcSecurityInterceptor.class);
+
+    static final Context.Key<String> API_KEY = Context.key("judge.api.key");
+    static final Context.Key<String> PRIORITY = Context.key("judge.priority");
+    static final Context.Key<String> CLIENT_ADDRESS = Context.key("judge.client.address");
+
+    private static final Metadata.Key<String> API_KEY_HEADER = Metadata.Key.of("x-api-key", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> PRIORITY_HEADER = Metadata.Key.of("x-priority", Metadata.ASCII_STRING_MARSHALLER);
+
+    @Inject
+    SecurityFilter securityFilter;
+
+    @Inject
+    RateLimitFilter rateLimitFilter;
+
+    @Override
+    public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers, ServerCallHandler<Q, R> next) {
+        String apiKey = headers.get(API_KEY_HEADER);
+        String clientAddress = clientAddress(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+        if (!securityFilter.isAuthorized(apiKey)) {
+            log.warn("Unauthorized gRPC call from IP: " + clientAddress);
+            call.close(Status.UNAUTHENTICATED.withDescription("Valid API key required"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        // Counted once per call, so a stream costs one request like a WebSocket connection
+        if (!rateLimitFilter.tryAcquire(clientAddress)) {
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Rate limit exceeded"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        Context context = Context.current()
+            .withValue(API_KEY, apiKey)
+            .withValue(PRIORITY, headers.get(PRIORITY_HEADER))
+            .withValue(CLIENT_ADDRESS, clientAddress);
+        return Contexts.interceptCall(context, call, headers, next);
+    }
+
+    private static String clientAddress(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            return inet.getAddress().getHostAddress();
+        }
+        return "unknown";
+    }
+}
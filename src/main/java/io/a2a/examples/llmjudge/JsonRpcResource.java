@@ -4,30 +4,209 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.StreamingOutput;
+import io.vertx.core.http.HttpServerRequest;
+import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.inject.Inject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import jakarta.annotation.PreDestroy;
 
 @Path("/jsonrpc")
 public class JsonRpcResource {
 
+    private static final Set<String> CONVERSATION_ROLES = Set.of("user", "assistant", "system");
+
     @Inject
     LLMService llmService;
 
+    @Inject
+    EnsembleJudge ensembleJudge;
+
+    @Inject
+    SimilarityCache similarityCache;
+
+    @Inject
+    EvaluationJournal evaluationJournal;
+
+    @Inject
+    BulkEvaluationService bulkEvaluationService;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    @Inject
+    UpstreamScheduler scheduler;
+
+    @Inject
+    AdaptiveConcurrencyLimiter limiter;
+
+    @Inject
+    UsageLedger usageLedger;
+
+    @Inject
+    LeaderboardService leaderboardService;
+
+    @Inject
+    RubricRegistry rubricRegistry;
+
+    @Inject
+    ReferenceMetrics referenceMetrics;
+
+    @Inject
+    KnowledgeBase knowledgeBase;
+
+    @Inject
+    ConversationStore conversationStore;
+
     @Inject
     UriInfo uriInfo;
 
+    @Inject
+    ContainerRequestContext requestContext;
+
+    @Inject
+    HttpServerRequest httpRequest;
+
+    @ConfigProperty(name = "sampling.max.samples", defaultValue = "10")
+    int maxSamples;
+
+    @ConfigProperty(name = "conversation.max.turns.per.call", defaultValue = "100")
+    int maxConversationTurns;
+
+    @ConfigProperty(name = "reference.max.candidates", defaultValue = "1000")
+    int maxReferenceCandidates;
+
+    @ConfigProperty(name = "reference.max.judged", defaultValue = "20")
+    int maxReferenceJudged;
+
+    @ConfigProperty(name = "reference.judge.parallelism", defaultValue = "4")
+    int referenceJudgeParallelism;
+
+    private volatile ExecutorService referenceJudgeExecutor;
+
     private final Random random = new Random();
 
+    private final ObjectMapper canonicalMapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
     @POST
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, PayloadCodec.SMILE, PayloadCodec.CBOR})
+    @Produces({MediaType.APPLICATION_JSON, PayloadCodec.SMILE, PayloadCodec.CBOR})
     public Map<String, Object> handleJsonRpc(Map<String, Object> request) {
+        EvaluationContext context = EvaluationContext.begin(methodOf(request));
+        if (requestContext.getProperty(ServerTimingFilter.RECEIVED_AT) instanceof Long receivedAt) {
+            context.setReceivedNanos(receivedAt);
+        }
+        context.setTraceParent(requestContext.getHeaderString("traceparent"));
+        context.setPriority(scheduler.classify(requestContext.getHeaderString("X-Priority"),
+            requestContext.getHeaderString("X-API-Key"), UpstreamScheduler.INTERACTIVE));
+        context.setTenant(requestTenant());
+        requestContext.setProperty(ServerTimingFilter.CONTEXT, context);
+        return process(request, context);
+    }
+
+    // Entry point for requests that did not arrive over HTTP, e.g. lines of a bulk run
+    Map<String, Object> handleRequest(Map<String, Object> request) {
+        return handleRequest(request, UsageLedger.ANONYMOUS);
+    }
+
+    Map<String, Object> handleRequest(Map<String, Object> request, String tenant) {
+        return handleRequest(request, tenant, UpstreamScheduler.BULK);
+    }
+
+    Map<String, Object> handleRequest(Map<String, Object> request, String tenant, String priority) {
+        EvaluationContext context = EvaluationContext.begin(methodOf(request));
+        context.setPriority(priority);
+        context.setTenant(tenant);
+        return process(request, context);
+    }
+
+    private Map<String, Object> process(Map<String, Object> request, EvaluationContext context) {
+        String method = context.getMethod();
+        long start = System.nanoTime();
+        metrics.requestStarted(method);
+        String outcome = "error";
+        try {
+            boolean timing = false;
+            if (request.get("params") instanceof Map<?, ?> params && params.containsKey("_timing")) {
+                // Strip the flag so it never reaches the evaluators, cache keys or journal hashes
+                Map<String, Object> stripped = new LinkedHashMap<>();
+                params.forEach((key, value) -> stripped.put(String.valueOf(key), value));
+                timing = Boolean.TRUE.equals(stripped.remove("_timing"));
+                request = new HashMap<>(request);
+                request.put("params", stripped);
+            }
+            Map<String, Object> response = dispatch(request);
+            outcome = outcomeOf(response, context);
+            context.setOutcome(outcome);
+            if (timing && response.get("result") instanceof Map<?, ?> result) {
+                response = new HashMap<>(response);
+                response.put("result", withTiming(result, context));
+            }
+            return response;
+        } finally {
+            metrics.requestCompleted(method, outcome, System.nanoTime() - start);
+            context.end();
+        }
+    }
+
+    private Map<String, Object> withTiming(Map<?, ?> result, EvaluationContext context) {
+        Map<String, Object> timing = new LinkedHashMap<>();
+        context.phaseMillis().forEach((phase, millis) -> timing.put(phase + "_ms", ScoreStats.round(millis)));
+        timing.put("total_ms", ScoreStats.round((System.nanoTime() - context.getReceivedNanos()) / 1e6));
+        Map<String, Object> copy = new LinkedHashMap<>();
+        result.forEach((key, value) -> copy.put(String.valueOf(key), value));
+        copy.put("_timing", timing);
+        return copy;
+    }
+
+    /**
+     * Runs the heuristic scorer for an evaluation method directly, bypassing the LLM, cache, journal
+     * and metrics. Used to warm up the scoring paths at boot.
+     */
+    Map<String, Object> evaluateHeuristically(String method, Map<String, Object> params) {
+        switch (method) {
+            case "evaluate_response":
+                return mockEvaluateResponse((String) params.get("prompt"), (String) params.get("response"), params.get("criteria"));
+            case "score_quality":
+                return mockScoreQuality((String) params.get("content"), (String) params.get("content_type"), params.get("dimensions"));
+            case "check_factual_accuracy":
+                return mockCheckFactualAccuracy((String) params.get("claim"), (String) params.get("domain"));
+            case "assess_relevance":
+                return getMockRelevanceAssessment((String) params.get("query"), (String) params.get("response"), (String) params.get("context"));
+            case "compare_responses":
+                return compareResponses(params);
+            default:
+                throw new IllegalArgumentException("Not an evaluation method: " + method);
+        }
+    }
+
+    private static String methodOf(Map<String, Object> request) {
+        return request.get("method") instanceof String ? (String) request.get("method") : null;
+    }
+
+    private Map<String, Object> dispatch(Map<String, Object> request) {
         String method = (String) request.get("method");
         Object params = request.get("params");
         Object id = request.get("id");
@@ -51,7 +230,9 @@ public class JsonRpcResource {
                         Map.of("id", "score_quality", "name", "Content Quality Scoring", "description", "Scores content quality across multiple dimensions"),
                         Map.of("id", "check_factual_accuracy", "name", "Factual Accuracy Check", "description", "Verifies factual accuracy of claims across different domains"),
                         Map.of("id", "assess_relevance", "name", "Relevance Assessment", "description", "Assesses how relevant a response is to a given query"),
-                        Map.of("id", "compare_responses", "name", "Response Comparison", "description", "Compares multiple responses to the same prompt and ranks them")
+                        Map.of("id", "compare_responses", "name", "Response Comparison", "description", "Compares multiple responses to the same prompt and ranks them"),
+                        Map.of("id", "evaluate_against_reference", "name", "Reference-Based Scoring", "description", "Scores candidates against a gold reference with ROUGE-L, BLEU, token F1 and BM25"),
+                        Map.of("id", "evaluate_conversation", "name", "Conversation Evaluation", "description", "Judges the new turns of a multi-turn conversation and keeps running scores")
                     )
                 );
                 break;
@@ -109,6 +290,20 @@ public class JsonRpcResource {
                         "description", "Compares multiple responses to the same prompt and ranks them",
                         "tags", List.of("comparison", "ranking", "evaluation"),
                         "examples", List.of("compare_responses prompt='Explain X' responses=['response1','response2'] criteria=['accuracy','detail']")
+                    ),
+                    Map.of(
+                        "id", "evaluate_against_reference",
+                        "name", "Reference-Based Scoring",
+                        "description", "Scores candidates against a gold reference with ROUGE-L, BLEU, token F1 and BM25, optionally passing the best to the LLM judge",
+                        "tags", List.of("reference", "metrics", "filtering"),
+                        "examples", List.of("evaluate_against_reference reference='Paris is the capital' candidates=['Paris','Lyon'] filter={'metric':'rouge_l','top_k':1}")
+                    ),
+                    Map.of(
+                        "id", "evaluate_conversation",
+                        "name", "Conversation Evaluation",
+                        "description", "Judges only the newly appended turns of a multi-turn conversation, with a running summary as context and incremental per-turn and aggregate scores",
+                        "tags", List.of("conversation", "multi-turn", "evaluation"),
+                        "examples", List.of("evaluate_conversation conversation_id='c1' turns=[{'role':'user','content':'Hi'},{'role':'assistant','content':'Hello!'}]")
                     )
                 );
                 break;
@@ -125,25 +320,50 @@ public class JsonRpcResource {
                     "status", "UP",
                     "uptime", "running",
                     "lastHealthCheck", System.currentTimeMillis(),
-                    "activeConnections", 0,
-                    "evaluationMode", llmService != null && llmService.isConfigured() ? "LLM" : "MOCK"
+                    "activeConnections", metrics.summary().get("in_flight"),
+                    "evaluationMode", llmService != null && llmService.isConfigured() ? "LLM" : "MOCK",
+                    "similarityCache", similarityCache.getStats(),
+                    "scheduler", scheduler.getStats(),
+                    "limiter", limiter.getStats(),
+                    "metrics", metrics.summary()
                 );
                 break;
             // LLM-as-a-Judge Evaluation Methods
             case "evaluate_response":
-                result = evaluateResponse(params);
+                result = runEvaluation(method, params, this::evaluateResponse);
                 break;
             case "score_quality":
-                result = scoreQuality(params);
+                result = runEvaluation(method, params, this::scoreQuality);
                 break;
             case "check_factual_accuracy":
-                result = checkFactualAccuracy(params);
+                result = runEvaluation(method, params, this::checkFactualAccuracy);
                 break;
             case "assess_relevance":
-                result = assessRelevance(params);
+                result = runEvaluation(method, params, this::assessRelevance);
                 break;
             case "compare_responses":
-                result = compareResponses(params);
+                result = runEvaluation(method, params, this::compareResponses);
+                break;
+            case "evaluate_against_reference":
+                result = runEvaluation(method, params, this::evaluateAgainstReference);
+                break;
+            case "evaluate_conversation":
+                result = runEvaluation(method, params, this::evaluateConversation);
+                break;
+            case "journal.query":
+                result = queryJournal(params);
+                break;
+            case "bulk.evaluate":
+                result = bulkEvaluate(params);
+                break;
+            case "usage.query":
+                result = queryUsage(params);
+                break;
+            case "leaderboard.query":
+                result = queryLeaderboard(params);
+                break;
+            case "rubric.list":
+                result = rubricRegistry.list();
                 break;
             default:
                 return Map.of(
@@ -163,6 +383,199 @@ public class JsonRpcResource {
         );
     }
 
+    // llm, mock_fallback (LLM failed), mock (heuristics only), cached, rejected (shed by the scheduler or over budget), error or ok for protocol methods
+    private String outcomeOf(Map<String, Object> response, EvaluationContext context) {
+        if (response.containsKey("error")) {
+            return "error";
+        }
+        Object result = response.get("result");
+        if (result instanceof Map<?, ?> resultMap
+            && ("OVERLOADED".equals(resultMap.get("error_code")) || "BUDGET_EXCEEDED".equals(resultMap.get("error_code")))) {
+            return "rejected";
+        }
+        if (result instanceof Map && ((Map<?, ?>) result).containsKey("error")) {
+            return "error";
+        }
+        if (result instanceof Map && ((Map<?, ?>) result).containsKey("cache")) {
+            return "cached";
+        }
+        if (context.isFallback()) {
+            return "mock_fallback";
+        }
+        if (context.isUpstreamCalled()) {
+            return "llm";
+        }
+        return EvaluationJournal.METHODS.contains(context.getMethod()) ? "mock" : "ok";
+    }
+
+    @POST
+    @Path("/bulk")
+    @Consumes({"application/x-ndjson", "application/jsonl", MediaType.TEXT_PLAIN})
+    @Produces("application/x-ndjson")
+    public StreamingOutput handleBulk(InputStream body, @QueryParam("concurrency") Integer concurrency,
+                                      @QueryParam("skip") @DefaultValue("0") long skip) {
+        int resolvedConcurrency = bulkEvaluationService.resolveConcurrency(concurrency);
+        String tenant = requestTenant();
+        return output -> bulkEvaluationService.stream(body, output, resolvedConcurrency, skip, line -> handleRequest(line, tenant));
+    }
+
+    private Map<String, Object> bulkEvaluate(Object params) {
+        if (!(params instanceof Map)) {
+            return Map.of("error", "Invalid input: params must be an object");
+        }
+
+        Map<?, ?> paramMap = (Map<?, ?>) params;
+        if (!(paramMap.get("input") instanceof String)) {
+            return Map.of("error", "Invalid input: input file is required");
+        }
+        String input = (String) paramMap.get("input");
+        String output = paramMap.get("output") instanceof String ? (String) paramMap.get("output") : null;
+        Integer concurrency = paramMap.get("concurrency") instanceof Number ? ((Number) paramMap.get("concurrency")).intValue() : null;
+        boolean resume = !Boolean.FALSE.equals(paramMap.get("resume"));
+        String tenant = EvaluationContext.current() != null ? EvaluationContext.current().getTenant() : UsageLedger.ANONYMOUS;
+        return bulkEvaluationService.runFile(input, output, bulkEvaluationService.resolveConcurrency(concurrency), resume,
+            line -> handleRequest(line, tenant));
+    }
+
+    private Map<String, Object> runEvaluation(String method, Object params, Function<Object, Map<String, Object>> evaluator) {
+        JudgeDetail detail = JudgeDetail.parse(params instanceof Map ? ((Map<?, ?>) params).get("detail") : null);
+        if (detail == null) {
+            return Map.of(
+                "error", "Invalid input: detail must be one of score_only, brief, full",
+                "error_code", "INVALID_INPUT"
+            );
+        }
+
+        EvaluationContext context = EvaluationContext.current();
+        if (context != null) {
+            Map<String, Object> budgetError = usageLedger.checkBudget(context.getTenant());
+            if (budgetError != null) {
+                return budgetError;
+            }
+        }
+
+        long start = System.nanoTime();
+        Map<String, Object> result;
+        try {
+            result = detail.trim(withSimilarityCache(method, params, evaluator));
+        } catch (UpstreamScheduler.RejectedException e) {
+            result = e.toResult();
+        }
+        // Rubric methods reject unknown rubrics, so a successful result always has one to report
+        if (!result.containsKey("error") && RubricRegistry.METHODS.contains(method)
+                && params instanceof Map && ((Map<?, ?>) params).containsKey("rubric")) {
+            result = new LinkedHashMap<>(result);
+            result.put("rubric", findRubric(((Map<?, ?>) params).get("rubric"), method).id());
+        }
+        // Errors that still made upstream calls (e.g. a conversation that failed after judging some turns) are billed too
+        if (context != null && (!result.containsKey("error") || context.getLlmCalls() > 0)) {
+            result = new LinkedHashMap<>(result);
+            result.put("usage", usageLedger.record(context.getTenant(), method, context));
+        }
+        long latencyMicros = (System.nanoTime() - start) / 1000;
+
+        if (evaluationJournal.isEnabled()) {
+            evaluationJournal.append(toJournalRecord(method, params, result, context, latencyMicros));
+        }
+        return result;
+    }
+
+    private EvaluationJournal.JournalRecord toJournalRecord(String method, Object params, Map<String, Object> result,
+                                                            EvaluationContext context, long latencyMicros) {
+        // What this call actually did: a configured LLM says nothing about a call that fell back or hit the cache
+        boolean fallback = context != null && context.isFallback();
+        boolean llm = context != null && context.isUpstreamCalled() && !fallback;
+        boolean cached = result.containsKey("cache");
+        int flags = 0;
+        if (result.containsKey("error")) flags |= EvaluationJournal.FLAG_ERROR;
+        if (cached) flags |= EvaluationJournal.FLAG_CACHED;
+        if (llm) flags |= EvaluationJournal.FLAG_LLM;
+        if (fallback) flags |= EvaluationJournal.FLAG_FALLBACK;
+
+        double score = Double.NaN;
+        for (String field : List.of("overall_score", "accuracy_score", "relevance_score")) {
+            if (result.get(field) instanceof Number) {
+                score = ((Number) result.get(field)).doubleValue();
+                break;
+            }
+        }
+
+        int promptTokens = 0;
+        int completionTokens = 0;
+        int cachedTokens = 0;
+        if (result.get("usage") instanceof Map) {
+            Map<?, ?> usage = (Map<?, ?>) result.get("usage");
+            promptTokens = usage.get("prompt_tokens") instanceof Number ? ((Number) usage.get("prompt_tokens")).intValue() : 0;
+            completionTokens = usage.get("completion_tokens") instanceof Number ? ((Number) usage.get("completion_tokens")).intValue() : 0;
+            cachedTokens = usage.get("cached_tokens") instanceof Number ? ((Number) usage.get("cached_tokens")).intValue() : 0;
+        }
+
+        boolean judgedByModel = llm || cached && llmService != null && llmService.isConfigured();
+        String model = !judgedByModel ? "mock" : params instanceof Map && ((Map<?, ?>) params).containsKey("ensemble") ? "ensemble" : llmService.getModel();
+        return new EvaluationJournal.JournalRecord(System.currentTimeMillis(), inputsHash(method, params), method, flags,
+            latencyMicros, model, score, promptTokens, completionTokens, cachedTokens);
+    }
+
+    private long inputsHash(String method, Object params) {
+        try {
+            return SimilarityCache.hash64(method + canonicalMapper.writeValueAsString(params));
+        } catch (Exception e) {
+            return SimilarityCache.hash64(method + params);
+        }
+    }
+
+    private Map<String, Object> queryJournal(Object params) {
+        Map<?, ?> paramMap = params instanceof Map ? (Map<?, ?>) params : Map.of();
+        long from = paramMap.get("from") instanceof Number ? ((Number) paramMap.get("from")).longValue() : 0L;
+        long to = paramMap.get("to") instanceof Number ? ((Number) paramMap.get("to")).longValue() : Long.MAX_VALUE;
+        String method = paramMap.get("method") instanceof String ? (String) paramMap.get("method") : null;
+        int limit = paramMap.get("limit") instanceof Number ? ((Number) paramMap.get("limit")).intValue() : 100;
+        return evaluationJournal.query(from, to, method, limit);
+    }
+
+    private Map<String, Object> queryLeaderboard(Object params) {
+        Map<?, ?> paramMap = params instanceof Map ? (Map<?, ?>) params : Map.of();
+        String board = paramMap.get("leaderboard") instanceof String ? (String) paramMap.get("leaderboard") : LeaderboardService.DEFAULT_BOARD;
+        int limit = paramMap.get("limit") instanceof Number ? ((Number) paramMap.get("limit")).intValue() : 100;
+        int minMatches = paramMap.get("min_matches") instanceof Number ? ((Number) paramMap.get("min_matches")).intValue() : 0;
+        return leaderboardService.query(board, limit, minMatches);
+    }
+
+    // Tenants identified by their own API key only see their own usage. The tenant comes from the
+    // evaluation context, so this also works for bulk lines that run off the HTTP request thread.
+    private Map<String, Object> queryUsage(Object params) {
+        Map<?, ?> paramMap = params instanceof Map ? (Map<?, ?>) params : Map.of();
+        String tenant = paramMap.get("tenant") instanceof String ? (String) paramMap.get("tenant") : null;
+        String ownTenant = EvaluationContext.current().getTenant();
+        return usageLedger.query(usageLedger.isKeyTenant(ownTenant) ? ownTenant : tenant);
+    }
+
+    private String requestTenant() {
+        String clientIP = UsageLedger.clientAddress(requestContext.getHeaderString("X-Forwarded-For"),
+            httpRequest.remoteAddress() != null ? httpRequest.remoteAddress().host() : null);
+        return usageLedger.resolveTenant(requestContext.getHeaderString("X-API-Key"), clientIP);
+    }
+
+    private Map<String, Object> withSimilarityCache(String method, Object params, Function<Object, Map<String, Object>> evaluator) {
+        if (!similarityCache.isEnabled() || !(params instanceof Map)) {
+            return evaluator.apply(params);
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> paramMap = (Map<String, Object>) params;
+        if (Boolean.FALSE.equals(paramMap.get("cache"))) {
+            return evaluator.apply(params);
+        }
+
+        Map<String, Object> cached = similarityCache.lookup(method, paramMap);
+        if (cached != null) {
+            return cached;
+        }
+        Map<String, Object> result = evaluator.apply(params);
+        similarityCache.store(method, paramMap, result);
+        return result;
+    }
+
     private Map<String, Object> evaluateResponse(Object params) {
         if (!(params instanceof Map)) {
             return Map.of(
@@ -200,27 +613,72 @@ public class JsonRpcResource {
             criteria = List.of("accuracy", "clarity", "relevance", "completeness");
         }
 
+        RubricRegistry.Rubric rubric = null;
+        if (paramMap.containsKey("rubric")) {
+            rubric = findRubric(paramMap.get("rubric"), "evaluate_response");
+            if (rubric == null) {
+                return unknownRubric(paramMap.get("rubric"), "evaluate_response");
+            }
+            criteria = rubric.criterionNames();
+        }
+        RubricRegistry.Rubric judgeRubric = rubric;
+        Object mockCriteria = rubric != null ? rubric.criterionNames() : criteriaObj;
+
+        JudgeDetail detail = JudgeDetail.parse(paramMap.get("detail"));
+        EnsembleJudge.EnsembleRequest ensemble = ensembleJudge.parseRequest(paramMap.get("ensemble"));
+        if (ensemble != null) {
+            List<String> judgeCriteria = criteria;
+            return ensembleJudge.evaluate(ensemble, "overall_score", "criteria_scores", judge ->
+                llmService != null && llmService.isConfigured()
+                    ? llmService.evaluateResponse(prompt, response, judgeCriteria, judge, detail, judgeRubric)
+                    : mockEvaluateResponse(prompt, response, mockCriteria));
+        }
+
+        AdaptiveSampler.SamplingRequest sampling = AdaptiveSampler.parseRequest(paramMap.get("samples"), maxSamples);
+        if (sampling != null) {
+            if (llmService != null && llmService.isConfigured()) {
+                return llmService.sampleEvaluateResponse(prompt, response, criteria, sampling, detail, rubric);
+            }
+            return AdaptiveSampler.sample(sampling, "overall_score", "criteria_scores",
+                n -> AdaptiveSampler.repeat(n, () -> mockEvaluateResponse(prompt, response, mockCriteria)));
+        }
+
         // Try LLM first, fall back to mock
         if (llmService != null && llmService.isConfigured()) {
-            return llmService.evaluateResponse(prompt, response, criteria);
+            return llmService.evaluateResponse(prompt, response, criteria, JudgeSpec.DEFAULT, detail, rubric);
         } else {
-            // Mock evaluation logic
-            double overallScore = calculateResponseScore(prompt, response);
-            Map<String, Double> criteriaScores = calculateCriteriaScores(prompt, response, criteriaObj);
-            String feedback = generateFeedback(prompt, response, overallScore);
-            List<String> strengths = generateStrengths(response);
-            List<String> improvements = generateImprovements(response);
-
-            return Map.of(
-                "overall_score", overallScore,
-                "criteria_scores", criteriaScores,
-                "feedback", feedback,
-                "strengths", strengths,
-                "areas_for_improvement", improvements
-            );
+            return mockEvaluateResponse(prompt, response, mockCriteria);
         }
     }
 
+    private RubricRegistry.Rubric findRubric(Object reference, String method) {
+        return reference instanceof String ? rubricRegistry.find((String) reference, method) : null;
+    }
+
+    private Map<String, Object> unknownRubric(Object reference, String method) {
+        return Map.of(
+            "error", "Invalid input: no rubric " + reference + " for " + method,
+            "error_code", "INVALID_INPUT",
+            "suggestion", "List the available rubrics with rubric.list"
+        );
+    }
+
+    private Map<String, Object> mockEvaluateResponse(String prompt, String response, Object criteriaObj) {
+        double overallScore = calculateResponseScore(prompt, response);
+        Map<String, Double> criteriaScores = calculateCriteriaScores(prompt, response, criteriaObj);
+        String feedback = generateFeedback(prompt, response, overallScore);
+        List<String> strengths = generateStrengths(response);
+        List<String> improvements = generateImprovements(response);
+
+        return Map.of(
+            "overall_score", overallScore,
+            "criteria_scores", criteriaScores,
+            "feedback", feedback,
+            "strengths", strengths,
+            "areas_for_improvement", improvements
+        );
+    }
+
     private Map<String, Object> scoreQuality(Object params) {
         if (!(params instanceof Map)) {
             return Map.of("error", "Invalid input: params must be an object");
@@ -251,25 +709,58 @@ public class JsonRpcResource {
             dimensions = List.of("clarity", "completeness", "accuracy", "usability");
         }
 
+        RubricRegistry.Rubric rubric = null;
+        if (paramMap.containsKey("rubric")) {
+            rubric = findRubric(paramMap.get("rubric"), "score_quality");
+            if (rubric == null) {
+                return unknownRubric(paramMap.get("rubric"), "score_quality");
+            }
+            dimensions = rubric.criterionNames();
+        }
+        RubricRegistry.Rubric judgeRubric = rubric;
+        Object mockDimensions = rubric != null ? rubric.criterionNames() : dimensionsObj;
+
+        JudgeDetail detail = JudgeDetail.parse(paramMap.get("detail"));
+        EnsembleJudge.EnsembleRequest ensemble = ensembleJudge.parseRequest(paramMap.get("ensemble"));
+        if (ensemble != null) {
+            List<String> judgeDimensions = dimensions;
+            return ensembleJudge.evaluate(ensemble, "overall_score", "dimension_scores", judge ->
+                llmService != null && llmService.isConfigured()
+                    ? llmService.scoreQuality(content, contentType, judgeDimensions, judge, detail, judgeRubric)
+                    : mockScoreQuality(content, contentType, mockDimensions));
+        }
+
+        AdaptiveSampler.SamplingRequest sampling = AdaptiveSampler.parseRequest(paramMap.get("samples"), maxSamples);
+        if (sampling != null) {
+            if (llmService != null && llmService.isConfigured()) {
+                return llmService.sampleQualityScore(content, contentType, dimensions, sampling, detail, rubric);
+            }
+            return AdaptiveSampler.sample(sampling, "overall_score", "dimension_scores",
+                n -> AdaptiveSampler.repeat(n, () -> mockScoreQuality(content, contentType, mockDimensions)));
+        }
+
         // Try LLM first, fall back to mock
         if (llmService != null && llmService.isConfigured()) {
-            return llmService.scoreQuality(content, contentType, dimensions);
+            return llmService.scoreQuality(content, contentType, dimensions, JudgeSpec.DEFAULT, detail, rubric);
         } else {
-            // Mock evaluation logic
-            double overallScore = calculateContentScore(content, contentType);
-            Map<String, Double> dimensionScores = calculateDimensionScores(content, contentType, dimensionsObj);
-            String analysis = generateContentAnalysis(content, contentType, overallScore);
-            List<String> suggestions = generateContentSuggestions(content, contentType);
-
-            return Map.of(
-                "overall_score", overallScore,
-                "dimension_scores", dimensionScores,
-                "analysis", analysis,
-                "suggestions", suggestions
-            );
+            return mockScoreQuality(content, contentType, mockDimensions);
         }
     }
 
+    private Map<String, Object> mockScoreQuality(String content, String contentType, Object dimensionsObj) {
+        double overallScore = calculateContentScore(content, contentType);
+        Map<String, Double> dimensionScores = calculateDimensionScores(content, contentType, dimensionsObj);
+        String analysis = generateContentAnalysis(content, contentType, overallScore);
+        List<String> suggestions = generateContentSuggestions(content, contentType);
+
+        return Map.of(
+            "overall_score", overallScore,
+            "dimension_scores", dimensionScores,
+            "analysis", analysis,
+            "suggestions", suggestions
+        );
+    }
+
     private Map<String, Object> checkFactualAccuracy(Object params) {
         if (!(params instanceof Map)) {
             return Map.of("error", "Invalid input: params must be an object");
@@ -285,27 +776,77 @@ public class JsonRpcResource {
             return Map.of("error", "Invalid input: claim cannot be empty");
         }
 
+        JudgeDetail detail = JudgeDetail.parse(paramMap.get("detail"));
+        List<KnowledgeBase.Passage> evidence = List.of();
+        if (!knowledgeBase.isEmpty() && !Boolean.FALSE.equals(paramMap.get("retrieval"))) {
+            long phaseStart = System.nanoTime();
+            evidence = knowledgeBase.search(claim, knowledgeBase.topK(paramMap.get("top_k")));
+            EvaluationContext.recordPhase("retrieval", phaseStart);
+        }
+        return withEvidence(checkFactualAccuracy(paramMap, claim, domain, verificationLevel, detail, evidence), evidence);
+    }
+
+    private Map<String, Object> checkFactualAccuracy(Map<String, Object> paramMap, String claim, String domain, String verificationLevel,
+                                                     JudgeDetail detail, List<KnowledgeBase.Passage> evidence) {
+        EnsembleJudge.EnsembleRequest ensemble = ensembleJudge.parseRequest(paramMap.get("ensemble"));
+        if (ensemble != null) {
+            return ensembleJudge.evaluate(ensemble, "accuracy_score", null, judge ->
+                llmService != null && llmService.isConfigured()
+                    ? llmService.checkFactualAccuracy(claim, domain, verificationLevel, judge, detail, evidence)
+                    : mockCheckFactualAccuracy(claim, domain));
+        }
+
+        AdaptiveSampler.SamplingRequest sampling = AdaptiveSampler.parseRequest(paramMap.get("samples"), maxSamples);
+        if (sampling != null) {
+            if (llmService != null && llmService.isConfigured()) {
+                return llmService.sampleFactualAccuracy(claim, domain, verificationLevel, sampling, detail, evidence);
+            }
+            return AdaptiveSampler.sample(sampling, "accuracy_score", null,
+                n -> AdaptiveSampler.repeat(n, () -> mockCheckFactualAccuracy(claim, domain)));
+        }
+
         // Try LLM first, fall back to mock
         if (llmService != null && llmService.isConfigured()) {
-            return llmService.checkFactualAccuracy(claim, domain, verificationLevel);
+            return llmService.checkFactualAccuracy(claim, domain, verificationLevel, JudgeSpec.DEFAULT, detail, evidence);
         } else {
-            // Mock evaluation logic
-            double accuracyScore = calculateFactualAccuracy(claim, domain);
-            String verificationStatus = determineVerificationStatus(accuracyScore);
-            double confidence = calculateConfidence(accuracyScore);
-            String analysis = generateFactualAnalysis(claim, domain, accuracyScore);
-            List<String> evidence = generateSupportingEvidence(claim, domain);
-            List<String> caveats = generateCaveats(claim, domain);
+            return mockCheckFactualAccuracy(claim, domain);
+        }
+    }
 
-            return Map.of(
-                "accuracy_score", accuracyScore,
-                "verification_status", verificationStatus,
-                "confidence", confidence,
-                "analysis", analysis,
-                "supporting_evidence", evidence,
-                "caveats", caveats
-            );
+    // supporting_evidence keeps only the retrieved passage ids the judge cited (possibly none); every
+    // retrieved passage is listed under evidence, so an uncited passage is never presented as support
+    private static Map<String, Object> withEvidence(Map<String, Object> result, List<KnowledgeBase.Passage> evidence) {
+        if (evidence.isEmpty() || result.containsKey("error")) {
+            return result;
         }
+        List<String> ids = evidence.stream().map(KnowledgeBase.Passage::id).toList();
+        List<String> cited = result.get("supporting_evidence") instanceof List<?> list
+            ? ids.stream().filter(id -> list.stream().anyMatch(item -> String.valueOf(item).replaceAll("[\\[\\]]", "").trim().equals(id))).toList()
+            : List.of();
+        Map<String, Object> grounded = new LinkedHashMap<>(result);
+        grounded.put("supporting_evidence", cited);
+        grounded.put("evidence", evidence.stream()
+            .map(passage -> Map.<String, Object>of("id", passage.id(), "collection", passage.collection(), "score", passage.score()))
+            .toList());
+        return grounded;
+    }
+
+    private Map<String, Object> mockCheckFactualAccuracy(String claim, String domain) {
+        double accuracyScore = calculateFactualAccuracy(claim, domain);
+        String verificationStatus = determineVerificationStatus(accuracyScore);
+        double confidence = calculateConfidence(accuracyScore);
+        String analysis = generateFactualAnalysis(claim, domain, accuracyScore);
+        List<String> evidence = generateSupportingEvidence(claim, domain);
+        List<String> caveats = generateCaveats(claim, domain);
+
+        return Map.of(
+            "accuracy_score", accuracyScore,
+            "verification_status", verificationStatus,
+            "confidence", confidence,
+            "analysis", analysis,
+            "supporting_evidence", evidence,
+            "caveats", caveats
+        );
     }
 
     private Map<String, Object> assessRelevance(Object params) {
@@ -345,6 +886,232 @@ public class JsonRpcResource {
         }
     }
 
+    private Map<String, Object> evaluateAgainstReference(Object params) {
+        if (!(params instanceof Map)) {
+            return Map.of("error", "Invalid input: params must be an object", "error_code", "INVALID_INPUT");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> paramMap = (Map<String, Object>) params;
+        if (!(paramMap.get("reference") instanceof String reference) || reference.isBlank()) {
+            return Map.of("error", "Invalid input: reference cannot be empty", "error_code", "INVALID_INPUT");
+        }
+        List<String> candidates = new ArrayList<>();
+        if (paramMap.get("candidate") instanceof String candidate) {
+            candidates.add(candidate);
+        } else if (paramMap.get("candidates") instanceof List<?> candidateList) {
+            for (Object candidate : candidateList) {
+                if (!(candidate instanceof String)) {
+                    return Map.of("error", "Invalid input: candidates must be strings", "error_code", "INVALID_INPUT");
+                }
+                candidates.add((String) candidate);
+            }
+        }
+        if (candidates.isEmpty() || candidates.size() > maxReferenceCandidates) {
+            return Map.of(
+                "error", "Invalid input: provide between 1 and " + maxReferenceCandidates + " candidates",
+                "error_code", "INVALID_INPUT"
+            );
+        }
+
+        List<String> metrics = new ArrayList<>();
+        if (paramMap.get("metrics") instanceof List<?> metricList) {
+            for (Object metric : metricList) {
+                if (!ReferenceMetrics.METRICS.contains(metric)) {
+                    return Map.of(
+                        "error", "Invalid input: unknown metric " + metric + ", expected one of " + ReferenceMetrics.METRICS,
+                        "error_code", "INVALID_INPUT"
+                    );
+                }
+                metrics.add((String) metric);
+            }
+        }
+        if (metrics.isEmpty()) {
+            metrics = ReferenceMetrics.METRICS;
+        }
+
+        Map<?, ?> filter = paramMap.get("filter") instanceof Map ? (Map<?, ?>) paramMap.get("filter") : null;
+        String filterMetric = filter != null && filter.get("metric") instanceof String ? (String) filter.get("metric") : "rouge_l";
+        if (filter != null && !metrics.contains(filterMetric)) {
+            return Map.of("error", "Invalid input: filter metric " + filterMetric + " is not computed", "error_code", "INVALID_INPUT");
+        }
+        Map<?, ?> judge = paramMap.get("judge") instanceof Map ? (Map<?, ?>) paramMap.get("judge") : null;
+        if (judge != null && !(judge.get("prompt") instanceof String)) {
+            return Map.of("error", "Invalid input: judge.prompt is required for LLM scoring", "error_code", "INVALID_INPUT");
+        }
+        JudgeDetail judgeDetail = judge != null ? JudgeDetail.parse(judge.get("detail")) : JudgeDetail.FULL;
+        if (judgeDetail == null) {
+            return Map.of("error", "Invalid input: judge.detail must be one of score_only, brief, full", "error_code", "INVALID_INPUT");
+        }
+
+        List<Map<String, Object>> scored = referenceMetrics.score(reference, candidates, metrics);
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Integer> selected = null;
+        if (filter != null) {
+            double min = filter.get("min") instanceof Number ? ((Number) filter.get("min")).doubleValue() : 0.0;
+            int topK = filter.get("top_k") instanceof Number ? ((Number) filter.get("top_k")).intValue() : 0;
+            selected = referenceMetrics.select(scored, filterMetric, min, topK);
+            boolean[] passed = new boolean[candidates.size()];
+            selected.forEach(index -> passed[index] = true);
+            for (Map<String, Object> entry : scored) {
+                entry.put("passed", passed[(Integer) entry.get("index")]);
+            }
+            result.put("filter", Map.of("metric", filterMetric, "min", min, "top_k", topK, "passed", selected));
+        }
+
+        // Second stage: only the candidates that passed the filter cost an LLM judgement
+        if (judge != null) {
+            List<Integer> toJudge = selected != null ? selected : IntStream.range(0, candidates.size()).boxed().toList();
+            if (toJudge.size() > maxReferenceJudged) {
+                return Map.of(
+                    "error", "Invalid input: " + toJudge.size() + " candidates would be judged, at most " + maxReferenceJudged
+                        + " are allowed; narrow them with filter.top_k or filter.min",
+                    "error_code", "INVALID_INPUT"
+                );
+            }
+            EvaluationContext context = EvaluationContext.current();
+            List<Future<Map<String, Object>>> judgements = new ArrayList<>();
+            for (int index : toJudge) {
+                Map<String, Object> judgeParams = new HashMap<>();
+                judge.forEach((key, value) -> judgeParams.put(String.valueOf(key), value));
+                judgeParams.put("prompt", judge.get("prompt") + "\n\nReference answer: " + reference);
+                judgeParams.put("response", candidates.get(index));
+                Callable<Map<String, Object>> task = () -> evaluateResponse(judgeParams);
+                judgements.add(referenceJudgeExecutor().submit(context != null ? context.wrap(task) : task));
+            }
+            try {
+                for (int i = 0; i < toJudge.size(); i++) {
+                    scored.get(toJudge.get(i)).put("judgement", judgeDetail.trim(judgements.get(i).get()));
+                }
+            } catch (InterruptedException e) {
+                judgements.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reference judging was interrupted", e);
+            } catch (ExecutionException e) {
+                judgements.forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Reference judgement failed: " + e.getCause().getMessage(), e.getCause());
+            }
+            result.put("judged", toJudge.size());
+        }
+        result.put("candidates", scored);
+        return result;
+    }
+
+    private ExecutorService referenceJudgeExecutor() {
+        if (referenceJudgeExecutor == null) {
+            synchronized (this) {
+                if (referenceJudgeExecutor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    referenceJudgeExecutor = Executors.newFixedThreadPool(referenceJudgeParallelism, runnable -> {
+                        Thread thread = new Thread(runnable, "reference-judge-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return referenceJudgeExecutor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (referenceJudgeExecutor != null) {
+            referenceJudgeExecutor.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> evaluateConversation(Object params) {
+        if (!(params instanceof Map)) {
+            return Map.of("error", "Invalid input: params must be an object", "error_code", "INVALID_INPUT");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> paramMap = (Map<String, Object>) params;
+        if (!(paramMap.get("conversation_id") instanceof String conversationId) || conversationId.isBlank()) {
+            return Map.of("error", "Invalid input: conversation_id is required", "error_code", "INVALID_INPUT");
+        }
+        if (!(paramMap.get("turns") instanceof List<?> turns) || turns.size() > maxConversationTurns
+                || turns.stream().anyMatch(turn -> !(turn instanceof Map<?, ?> map) || !(map.get("content") instanceof String)
+                    || !CONVERSATION_ROLES.contains(map.get("role")))) {
+            return Map.of(
+                "error", "Invalid input: turns must be a list of at most " + maxConversationTurns + " {role, content} objects with role user, assistant or system",
+                "error_code", "INVALID_INPUT"
+            );
+        }
+        Object startParam = paramMap.get("start");
+        if (startParam != null && (!(startParam instanceof Integer) || (Integer) startParam < 0)) {
+            return Map.of("error", "Invalid input: start must be a non-negative turn index", "error_code", "INVALID_INPUT");
+        }
+
+        JudgeDetail detail = JudgeDetail.parse(paramMap.get("detail"));
+        // Everything else (criteria, rubric, ensemble, samples, ...) is passed on to each turn's evaluate_response
+        Map<String, Object> judgeParams = new HashMap<>(paramMap);
+        judgeParams.keySet().removeAll(List.of("conversation_id", "turns", "start"));
+
+        ConversationStore.Conversation conversation = conversationStore.get(conversationId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> judged = new ArrayList<>();
+        try {
+            synchronized (conversation) {
+                int start = startParam != null ? (Integer) startParam : conversation.turns();
+                if (start > conversation.turns()) {
+                    return Map.of(
+                        "error", "Invalid input: the conversation has " + conversation.turns() + " turns, so start cannot be " + start,
+                        "error_code", "INVALID_INPUT",
+                        "suggestion", "Resend the transcript from turn " + conversation.turns() + "; idle conversations are evicted"
+                    );
+                }
+                // Turns the conversation has already seen (a retry or a resent transcript) are skipped
+                for (int i = conversation.turns() - start; i < turns.size(); i++) {
+                    Map<?, ?> turn = (Map<?, ?>) turns.get(i);
+                    String content = (String) turn.get("content");
+                    if ("user".equals(turn.get("role"))) {
+                        String pending = conversation.pendingUser();
+                        conversation.setPendingUser(pending == null ? content : pending + "\n" + content);
+                    } else if ("assistant".equals(turn.get("role"))) {
+                        String context = conversation.summary();
+                        String user = conversation.pendingUser();
+                        judgeParams.put("prompt", (context.isEmpty() ? "" : "Conversation so far:\n" + context + "\n")
+                            + "User: " + (user != null ? user : "(no user message)"));
+                        judgeParams.put("response", content);
+                        Map<String, Object> judgement = evaluateResponse(judgeParams);
+                        // Stop at a failed turn (or a heuristic stand-in for one) without recording it; the
+                        // turns before it stay applied and the client resumes from next_turn
+                        if (judgement.containsKey("error") || LLMService.isFallback(judgement)) {
+                            result.put("error", judgement.containsKey("error")
+                                ? "Judging turn " + conversation.turns() + " failed: " + judgement.get("error")
+                                : "Judging turn " + conversation.turns() + " failed: the upstream call failed");
+                            result.put("error_code", judgement.getOrDefault("error_code", "JUDGE_FAILED"));
+                            result.put("conversation_id", conversationId);
+                            result.put("next_turn", conversation.turns());
+                            result.put("judged", judged);
+                            result.put("aggregate", conversation.aggregate());
+                            return result;
+                        }
+                        double score = judgement.get("overall_score") instanceof Number ? ((Number) judgement.get("overall_score")).doubleValue() : 0.0;
+                        conversation.record(conversation.turns(), user, content, score,
+                            judgement.get("criteria_scores") instanceof Map<?, ?> scores ? scores : null);
+                        conversation.setPendingUser(null);
+                        Map<String, Object> entry = new LinkedHashMap<>();
+                        entry.put("turn", conversation.turns());
+                        entry.putAll(detail.trim(judgement));
+                        judged.add(entry);
+                    }
+                    conversation.advance();
+                }
+                result.put("conversation_id", conversationId);
+                if (conversation.meanScore() != null) {
+                    result.put("overall_score", conversation.meanScore());
+                }
+                result.put("judged", judged);
+                result.put("aggregate", conversation.aggregate());
+            }
+        } finally {
+            conversationStore.update(conversation);
+        }
+        return result;
+    }
+
     private Map<String, Object> compareResponses(Object params) {
         if (!(params instanceof Map)) {
             return Map.of("error", "Invalid input: params must be an object");
@@ -366,6 +1133,13 @@ public class JsonRpcResource {
             return Map.of("error", "Invalid input: at least 2 responses required for comparison");
         }
 
+        // Optional model/system ids, one per response, feed the leaderboard
+        Object candidatesObj = paramMap.get("candidates");
+        if (candidatesObj != null && (!(candidatesObj instanceof List) || ((List<?>) candidatesObj).size() != responses.size()
+            || ((List<?>) candidatesObj).stream().anyMatch(candidate -> !(candidate instanceof String) || ((String) candidate).isBlank()))) {
+            return Map.of("error", "Invalid input: candidates must list one id per response");
+        }
+
         Map<String, Map<String, Double>> scores = new HashMap<>();
         for (int i = 0; i < responses.size(); i++) {
             String response = responses.get(i);
@@ -382,11 +1156,29 @@ public class JsonRpcResource {
         String analysis = generateComparisonAnalysis(prompt, responses, scores, winner);
         List<String> recommendations = generateComparisonRecommendations(responses, scores);
 
+        if (candidatesObj == null || !leaderboardService.isEnabled()) {
+            return Map.of(
+                "winner", winner,
+                "scores", scores,
+                "analysis", analysis,
+                "recommendations", recommendations
+            );
+        }
+
+        @SuppressWarnings("unchecked")
+        List<String> candidates = (List<String>) candidatesObj;
+        List<Double> overallScores = new ArrayList<>();
+        for (int i = 0; i < responses.size(); i++) {
+            overallScores.add(scores.get("response_" + (i + 1)).get("overall"));
+        }
+        String board = paramMap.get("leaderboard") instanceof String ? (String) paramMap.get("leaderboard") : LeaderboardService.DEFAULT_BOARD;
         return Map.of(
             "winner", winner,
+            "winner_candidate", candidates.get(Integer.parseInt(winner.substring("response_".length())) - 1),
             "scores", scores,
             "analysis", analysis,
-            "recommendations", recommendations
+            "recommendations", recommendations,
+            "leaderboard", leaderboardService.recordComparison(board, candidates, overallScores)
         );
     }
 
@@ -594,10 +1386,9 @@ public class JsonRpcResource {
         double score = 5.0;
         
         // Simple keyword matching
-        String queryLower = query.toLowerCase();
         String responseLower = response.toLowerCase();
         
-        String[] queryWords = queryLower.split("\\s+");
+        List<String> queryWords = Tokenizer.words(query);
         int matches = 0;
         for (String word : queryWords) {
             if (word.length() > 3 && responseLower.contains(word)) {
@@ -605,7 +1396,7 @@ public class JsonRpcResource {
             }
         }
         
-        score += (double) matches / queryWords.length * 3.0;
+        score += (double) matches / Math.max(1, queryWords.size()) * 3.0;
         score += (random.nextDouble() - 0.5) * 1.0;
         
         return Math.max(0.0, Math.min(10.0, score));
@@ -0,0 +1,56 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How much explanation a judgement carries, selected with the {@code detail} param. Generation time
+ * grows with the output, so the shorter levels use a compact prompt and schema and a lower
+ * {@code max_tokens} cap; results are trimmed to the same fields when they come from the heuristics.
+ */
+public enum JudgeDetail {
+    /** Scores, feedback/analysis and the supporting lists. */
+    FULL,
+    /** Scores plus a one-sentence feedback or analysis. */
+    BRIEF,
+    /** Scores only. */
+    SCORE_ONLY;
+
+    private static final Set<String> LIST_FIELDS = Set.of(
+        "strengths", "areas_for_improvement", "suggestions", "supporting_evidence", "caveats",
+        "matching_elements", "missing_elements", "recommendations");
+    private static final Set<String> TEXT_FIELDS = Set.of("feedback", "analysis");
+
+    /** Returns FULL when absent and null for an unknown level. */
+    public static JudgeDetail parse(Object value) {
+        if (value == null) {
+            return FULL;
+        }
+        if (value instanceof String name) {
+            for (JudgeDetail detail : values()) {
+                if (detail.paramName().equals(name.toLowerCase(Locale.ROOT))) {
+                    return detail;
+                }
+            }
+        }
+        return null;
+    }
+
+    public String paramName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public Map<String, Object> trim(Map<String, Object> result) {
+        if (this == FULL || result.containsKey("error")) {
+            return result;
+        }
+        Map<String, Object> trimmed = new LinkedHashMap<>(result);
+        trimmed.keySet().removeAll(LIST_FIELDS);
+        if (this == SCORE_ONLY) {
+            trimmed.keySet().removeAll(TEXT_FIELDS);
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,355 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process metrics registry rendered in the Prometheus text exposition format.
+ * Counters, gauges and histograms are keyed by name plus label values.
+ */
+@ApplicationScoped
+public class JudgeMetrics {
+
+    // Evaluation methods whose names are used as label values; anything else is reported as "other"
+    private static final List<String> KNOWN_METHODS = List.of(
+        "agent.discover", "agent.info", "agent.getCapabilities", "agent.getSkills", "agent.health", "agent.status",
+        "evaluate_response", "score_quality", "check_factual_accuracy", "assess_relevance", "compare_responses",
+        "evaluate_against_reference", "evaluate_conversation",
+        "journal.query", "bulk.evaluate", "usage.query", "leaderboard.query", "rubric.list"
+    );
+
+    static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static String methodLabel(String method) {
+        return method != null && KNOWN_METHODS.contains(method) ? method : "other";
+    }
+
+    // JSON-RPC requests
+
+    public void requestStarted(String method) {
+        gaugeValue("judge_jsonrpc_in_flight", "JSON-RPC requests currently being handled", "method", methodLabel(method))
+            .incrementAndGet();
+    }
+
+    public void requestCompleted(String method, String outcome, long durationNanos) {
+        String label = methodLabel(method);
+        gaugeValue("judge_jsonrpc_in_flight", "JSON-RPC requests currently being handled", "method", label)
+            .decrementAndGet();
+        histogram("judge_jsonrpc_request_duration_seconds", "JSON-RPC request latency by method and outcome",
+            "method", label, "outcome", outcome).observe(durationNanos / 1e9);
+    }
+
+    // Upstream LLM calls
+
+    public void upstreamStarted() {
+        gaugeValue("judge_upstream_in_flight", "Upstream LLM calls currently in flight").incrementAndGet();
+    }
+
+    public void upstreamCompleted(String status, long durationNanos) {
+        gaugeValue("judge_upstream_in_flight", "Upstream LLM calls currently in flight").decrementAndGet();
+        histogram("judge_upstream_request_duration_seconds", "Upstream LLM call latency by HTTP status",
+            "status", status).observe(durationNanos / 1e9);
+    }
+
+    public void recordTokens(long promptTokens, long completionTokens, long cachedTokens) {
+        counter("judge_llm_tokens_total", "Tokens reported by the upstream usage block", "type", "prompt").add(promptTokens);
+        counter("judge_llm_tokens_total", "Tokens reported by the upstream usage block", "type", "completion").add(completionTokens);
+        counter("judge_llm_tokens_total", "Tokens reported by the upstream usage block", "type", "cached").add(cachedTokens);
+    }
+
+    public void recordFallback(String method) {
+        counter("judge_llm_fallbacks_total", "LLM calls that failed and fell back to mock scoring",
+            "method", methodLabel(method)).increment();
+    }
+
+    public void recordRateLimitRejection() {
+        counter("judge_rate_limit_rejections_total", "Requests rejected by the per-client rate limit").increment();
+    }
+
+    // Generic registration
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").children.computeIfAbsent(labelString(labels), k -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "histogram").children
+            .computeIfAbsent(labelString(labels), k -> new Histogram(LATENCY_BUCKETS));
+    }
+
+    public AtomicLong gaugeValue(String name, String help, String... labels) {
+        return ((Gauge) family(name, help, "gauge").children
+            .computeIfAbsent(labelString(labels), k -> new Gauge(null))).value;
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, "gauge").children.put(labelString(labels), new Gauge(supplier));
+    }
+
+    /**
+     * Renders every metric in the Prometheus text format (version 0.0.4).
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> child : new ConcurrentSkipListMap<>(family.children).entrySet()) {
+                child.getValue().render(out, family.name, child.getKey());
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Compact view for agent.status: request counts and latency per method, upstream health,
+     * fallbacks, rate limiting and token usage.
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        Map<String, Map<String, Object>> methods = new LinkedHashMap<>();
+        Family requests = families.get("judge_jsonrpc_request_duration_seconds");
+        if (requests != null) {
+            for (Map.Entry<String, Metric> child : new ConcurrentSkipListMap<>(requests.children).entrySet()) {
+                Map<String, String> labels = parseLabels(child.getKey());
+                Histogram histogram = (Histogram) child.getValue();
+                Map<String, Object> stats = methods.computeIfAbsent(labels.get("method"), k -> new LinkedHashMap<>());
+                Map<String, Object> outcome = new LinkedHashMap<>();
+                outcome.put("count", histogram.count());
+                outcome.put("mean_ms", histogram.count() > 0 ? ScoreStats.round(histogram.sum() * 1000 / histogram.count()) : null);
+                outcome.put("p95_ms", histogram.quantileMillis(0.95));
+                stats.put(labels.get("outcome"), outcome);
+            }
+        }
+        summary.put("requests", methods);
+        summary.put("in_flight", sumGauges("judge_jsonrpc_in_flight"));
+        summary.put("upstream_in_flight", sumGauges("judge_upstream_in_flight"));
+
+        Family upstream = families.get("judge_upstream_request_duration_seconds");
+        long upstreamCalls = 0;
+        double upstreamSeconds = 0;
+        if (upstream != null) {
+            for (Metric metric : upstream.children.values()) {
+                upstreamCalls += ((Histogram) metric).count();
+                upstreamSeconds += ((Histogram) metric).sum();
+            }
+        }
+        summary.put("upstream_calls", upstreamCalls);
+        summary.put("upstream_mean_ms", upstreamCalls > 0 ? ScoreStats.round(upstreamSeconds * 1000 / upstreamCalls) : null);
+        summary.put("fallbacks", (long) sumCounters("judge_llm_fallbacks_total"));
+        summary.put("rate_limit_rejections", (long) sumCounters("judge_rate_limit_rejections_total"));
+
+        Map<String, Object> tokens = new LinkedHashMap<>();
+        Family tokenFamily = families.get("judge_llm_tokens_total");
+        if (tokenFamily != null) {
+            for (Map.Entry<String, Metric> child : tokenFamily.children.entrySet()) {
+                tokens.put(parseLabels(child.getKey()).get("type"), (long) ((Counter) child.getValue()).value());
+            }
+        }
+        summary.put("tokens", tokens);
+        return summary;
+    }
+
+    private long sumGauges(String name) {
+        Family family = families.get(name);
+        long total = 0;
+        if (family != null) {
+            for (Metric metric : family.children.values()) {
+                total += (long) ((Gauge) metric).read();
+            }
+        }
+        return total;
+    }
+
+    private double sumCounters(String name) {
+        Family family = families.get(name);
+        double total = 0;
+        if (family != null) {
+            for (Metric metric : family.children.values()) {
+                total += ((Counter) metric).value();
+            }
+        }
+        return total;
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    private static String labelString(String... labels) {
+        if (labels.length == 0) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("{");
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) out.append(',');
+            out.append(labels[i]).append("=\"")
+                .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                .append('"');
+        }
+        return out.append('}').toString();
+    }
+
+    private static Map<String, String> parseLabels(String labels) {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        if (labels.length() < 2) {
+            return parsed;
+        }
+        for (String pair : labels.substring(1, labels.length() - 1).split(",")) {
+            int eq = pair.indexOf('=');
+            parsed.put(pair.substring(0, eq), pair.substring(eq + 2, pair.length() - 1));
+        }
+        return parsed;
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String extra = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + extra + "}" : labels.substring(0, labels.length() - 1) + "," + extra + "}";
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final Map<String, Metric> children = new ConcurrentHashMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+        void render(StringBuilder out, String name, String labels);
+    }
+
+    public static final class Counter implements Metric {
+        private final DoubleAdder value = new DoubleAdder();
+
+        public void increment() {
+            value.add(1);
+        }
+
+        public void add(double amount) {
+            if (amount > 0) {
+                value.add(amount);
+            }
+        }
+
+        public double value() {
+            return value.sum();
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            out.append(name).append(labels).append(' ').append(format(value.sum())).append('\n');
+        }
+    }
+
+    private static final class Gauge implements Metric {
+        final AtomicLong value = new AtomicLong();
+        final DoubleSupplier supplier;
+
+        Gauge(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+
+        double read() {
+            return supplier != null ? supplier.getAsDouble() : value.get();
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            out.append(name).append(labels).append(' ').append(format(read())).append('\n');
+        }
+    }
+
+    public static final class Histogram implements Metric {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+        private final LongAdder count = new LongAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(value);
+            count.increment();
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double sum() {
+            return sum.sum();
+        }
+
+        // Upper bound of the bucket holding the quantile; coarse but allocation free
+        public Double quantileMillis(double quantile) {
+            long total = count.sum();
+            if (total == 0) {
+                return null;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= rank) {
+                    return bounds[i] * 1000;
+                }
+            }
+            // Beyond the largest bucket
+            return null;
+        }
+
+        @Override
+        public void render(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket").append(withLabel(labels, "le", format(bounds[i])))
+                    .append(' ').append(cumulative).append('\n');
+            }
+            cumulative += buckets[bounds.length].sum();
+            out.append(name).append("_bucket").append(withLabel(labels, "le", "+Inf")).append(' ').append(cumulative).append('\n');
+            out.append(name).append("_sum").append(labels).append(' ').append(format(sum.sum())).append('\n');
+            out.append(name).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+        }
+    }
+}
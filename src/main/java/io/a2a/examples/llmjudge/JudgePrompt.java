@@ -0,0 +1,78 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A judge prompt together with the JSON schema of the answer it asks for. The prompt is laid out
+ * static part first: {@code instructions} (role, rubric, guidance) and the output format never
+ * depend on the inputs, so calls with the same method, rubric and detail level share a byte-identical
+ * prefix that providers can serve from their prompt cache; the variable {@code inputs} come last.
+ * With structured output the provider enforces the schema and the prompt only names the fields;
+ * without it the expected structure is spelled out in {@code formatInstructions}. {@code rubric} is
+ * the rubric id, or null.
+ */
+public record JudgePrompt(String schemaName, String rubric, JudgeDetail detail, String instructions,
+                          String formatInstructions, String inputs, Map<String, Object> schema) {
+
+    public String render(boolean structured) {
+        if (structured) {
+            return instructions + "\nAnswer with a JSON object with the fields " + String.join(", ", properties().keySet()) + ".\n" + inputs;
+        }
+        return instructions + formatInstructions + inputs;
+    }
+
+    public JudgePrompt withSuffix(String suffix) {
+        return suffix.isEmpty() ? this : new JudgePrompt(schemaName, rubric, detail, instructions, formatInstructions, inputs + suffix, schema);
+    }
+
+    /** The first property of the schema, which holds the headline score. */
+    public String scoreField() {
+        return properties().keySet().iterator().next();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> properties() {
+        return (Map<String, Object>) schema.get("properties");
+    }
+
+    static String formatInstructions(List<String> fields) {
+        return "\nPlease return ONLY a valid JSON response with this exact structure:\n{\n  " + String.join(",\n  ", fields) + "\n}\n";
+    }
+
+    // Strict mode requires every property to be listed as required and no others to be allowed
+    static Map<String, Object> object(Map<String, Object> properties) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        schema.put("required", List.copyOf(properties.keySet()));
+        schema.put("additionalProperties", false);
+        return schema;
+    }
+
+    // Range bounds are not supported by strict schemas, so they go into the description
+    static Map<String, Object> number(String description) {
+        return Map.of("type", "number", "description", description);
+    }
+
+    static Map<String, Object> string(String description) {
+        return Map.of("type", "string", "description", description);
+    }
+
+    static Map<String, Object> strings(String description) {
+        return Map.of("type", "array", "items", Map.of("type", "string"), "description", description);
+    }
+
+    static Map<String, Object> enumeration(List<String> values) {
+        return Map.of("type", "string", "enum", values);
+    }
+
+    static Map<String, Object> scores(List<String> names) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String name : names) {
+            properties.put(name, number("Score 0-10"));
+        }
+        return object(properties);
+    }
+}
@@ -0,0 +1,27 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.Map;
+
+/**
+ * Describes one judge of an ensemble. Null fields fall back to the configured LLM settings.
+ */
+public record JudgeSpec(String model, Double temperature, String promptVariant) {
+
+    public static final JudgeSpec DEFAULT = new JudgeSpec(null, null, null);
+
+    public static JudgeSpec fromMap(Map<?, ?> map) {
+        String model = map.get("model") instanceof String ? (String) map.get("model") : null;
+        Double temperature = map.get("temperature") instanceof Number
+            ? ((Number) map.get("temperature")).doubleValue() : null;
+        String promptVariant = map.get("prompt_variant") instanceof String ? (String) map.get("prompt_variant") : null;
+        return new JudgeSpec(model, temperature, promptVariant);
+    }
+
+    public Map<String, Object> describe(String defaultModel, double defaultTemperature) {
+        return Map.of(
+            "model", model != null ? model : defaultModel,
+            "temperature", temperature != null ? temperature : defaultTemperature,
+            "prompt_variant", promptVariant != null ? promptVariant : "default"
+        );
+    }
+}
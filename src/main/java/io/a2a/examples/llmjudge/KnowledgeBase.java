@@ -0,0 +1,723 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Local knowledge base for retrieval-grounded fact checking. Every source file in
+ * {@code kb.source.dir} is a collection: {@code *.jsonl} with one {@code {"id", "text"}} passage
+ * per line, or {@code *.txt}/{@code *.md} split into paragraphs. Collections are indexed into
+ * immutable segment files in {@code kb.dir} (rebuilt only when the source is newer) that are
+ * memory-mapped at boot, so the index lives in the page cache rather than on the heap.
+ *
+ * <p>A segment holds a term dictionary sorted by token hash ({@link Tokenizer#ids}), postings of
+ * (passage, term frequency) sorted by passage, passage lengths and the passage store. Search is
+ * BM25 with collection-wide statistics and MaxScore pruning: terms are visited rarest first, and
+ * once the remaining terms cannot lift an unseen passage into the top k, the long postings of the
+ * common terms are only probed for the passages already scored. Terms with more than
+ * {@code kb.max.postings} postings in a segment are always probed rather than traversed, which
+ * bounds the work per query regardless of collection size.
+ */
+@ApplicationScoped
+public class KnowledgeBase {
+
+    private static final Logger log = Logger.getLogger(KnowledgeBase.class);
+
+    private static final int MAGIC = 0x4B424958; // "KBIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int DICT_ENTRY_SIZE = 16;
+    private static final int POSTING_SIZE = 8;
+    // Keeps every section of a segment addressable by int positions
+    private static final long MAX_SEGMENT_TEXT_BYTES = 1L << 30;
+
+    @ConfigProperty(name = "kb.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "kb.source.dir", defaultValue = "knowledge")
+    String sourceDir;
+
+    @ConfigProperty(name = "kb.dir", defaultValue = "data/kb")
+    String indexDir;
+
+    @ConfigProperty(name = "kb.segment.max.passages", defaultValue = "250000")
+    int maxSegmentPassages;
+
+    @ConfigProperty(name = "kb.max.postings", defaultValue = "5000")
+    int maxPostings;
+
+    @ConfigProperty(name = "kb.top.k", defaultValue = "5")
+    int defaultTopK;
+
+    @ConfigProperty(name = "kb.max.top.k", defaultValue = "20")
+    int maxTopK;
+
+    @ConfigProperty(name = "kb.passage.max.chars", defaultValue = "1000")
+    int passageMaxChars;
+
+    @ConfigProperty(name = "kb.bm25.k1", defaultValue = "1.2")
+    double k1;
+
+    @ConfigProperty(name = "kb.bm25.b", defaultValue = "0.75")
+    double b;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile long totalPassages;
+    private volatile long totalLength;
+
+    public record Passage(String id, String collection, String text, double score) {
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        Path sources = Paths.get(sourceDir);
+        if (!enabled || !Files.isDirectory(sources)) {
+            return;
+        }
+        try {
+            Path index = Paths.get(indexDir);
+            Files.createDirectories(index);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(sources, "*.{jsonl,txt,md}")) {
+                for (Path source : files) {
+                    try {
+                        load(source, index);
+                    } catch (Exception e) {
+                        log.warn("Skipping knowledge base collection " + source + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read knowledge base from " + sources.toAbsolutePath() + ": " + e.getMessage());
+        }
+        metrics.gauge("judge_kb_passages", "Passages in the knowledge base index", () -> totalPassages);
+        log.info("Knowledge base: " + totalPassages + " passages in " + segments.size() + " segments from " + sources.toAbsolutePath());
+    }
+
+    public boolean isEmpty() {
+        return totalPassages == 0;
+    }
+
+    public int topK(Object requested) {
+        int topK = requested instanceof Number ? ((Number) requested).intValue() : defaultTopK;
+        return Math.max(1, Math.min(maxTopK, topK));
+    }
+
+    /**
+     * The {@code k} passages that best match {@code query} by BM25, best first.
+     */
+    public List<Passage> search(String query, int k) {
+        List<Segment> current = segments;
+        if (totalPassages == 0 || current.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        int[] terms = distinct(Tokenizer.ids(query));
+        double averageLength = Math.max(1.0, (double) totalLength / totalPassages);
+
+        // Collection-wide document frequencies, so scores are comparable across segments
+        int[][] entries = new int[current.size()][terms.length];
+        long[] documentFrequency = new long[terms.length];
+        for (int s = 0; s < current.size(); s++) {
+            for (int t = 0; t < terms.length; t++) {
+                entries[s][t] = current.get(s).find(terms[t]);
+                if (entries[s][t] >= 0) {
+                    documentFrequency[t] += current.get(s).documentFrequency(entries[s][t]);
+                }
+            }
+        }
+        Integer[] order = new Integer[terms.length];
+        double[] idf = new double[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            order[t] = t;
+            idf[t] = Math.log(1.0 + (totalPassages - documentFrequency[t] + 0.5) / (documentFrequency[t] + 0.5));
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(idf[y], idf[x]));
+        // remaining[i]: the most the terms from position i on can add to any passage
+        double[] remaining = new double[terms.length + 1];
+        for (int i = terms.length - 1; i >= 0; i--) {
+            remaining[i] = remaining[i + 1] + (documentFrequency[order[i]] > 0 ? idf[order[i]] * (k1 + 1) : 0);
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(k + 1, (x, y) -> Double.compare(x.score, y.score));
+        for (int s = 0; s < current.size(); s++) {
+            current.get(s).search(s, entries[s], order, idf, remaining, averageLength, k, top);
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((x, y) -> Double.compare(y.score, x.score));
+        List<Passage> passages = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            passages.add(current.get(hit.segment).passage(hit.passage, Math.round(hit.score * 1000.0) / 1000.0, passageMaxChars));
+        }
+        metrics.histogram("judge_kb_retrieval_seconds", "Knowledge base retrieval latency")
+            .observe((System.nanoTime() - start) / 1_000_000_000.0);
+        return passages;
+    }
+
+    private void load(Path source, Path index) throws IOException {
+        String collection = source.getFileName().toString();
+        List<Path> existing = segmentFiles(index, collection);
+        if (existing.isEmpty() || Files.getLastModifiedTime(existing.get(0)).compareTo(Files.getLastModifiedTime(source)) < 0) {
+            for (Path stale : existing) {
+                Files.delete(stale);
+            }
+            long start = System.nanoTime();
+            build(source, index, collection);
+            existing = segmentFiles(index, collection);
+            log.info("Indexed " + source + " into " + existing.size() + " segments in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        for (Path file : existing) {
+            Segment segment = openSegment(file, collection);
+            segments.add(segment);
+            totalPassages += segment.passages;
+            totalLength += segment.totalLength;
+        }
+    }
+
+    private Segment openSegment(Path file, String collection) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("not a knowledge base segment: " + file);
+            }
+            return new Segment(collection, buffer);
+        }
+    }
+
+    private static List<Path> segmentFiles(Path index, String collection) throws IOException {
+        try (Stream<Path> files = Files.list(index)) {
+            return files.filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(collection + ".") && name.endsWith(".seg")
+                        && name.substring(collection.length() + 1, name.length() - 4).chars().allMatch(Character::isDigit);
+                })
+                .sorted((x, y) -> Integer.compare(sequenceOf(x, collection), sequenceOf(y, collection)))
+                .toList();
+        }
+    }
+
+    private static int sequenceOf(Path file, String collection) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(collection.length() + 1, name.length() - 4));
+    }
+
+    private void build(Path source, Path index, String collection) throws IOException {
+        String name = source.getFileName().toString();
+        try (SegmentWriter writer = new SegmentWriter(index, collection)) {
+            if (name.endsWith(".jsonl")) {
+                try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                    String line;
+                    int lineNumber = 0;
+                    while ((line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        JsonNode node = objectMapper.readTree(line);
+                        String text = node.path("text").asText("");
+                        if (!text.isBlank()) {
+                            String title = node.path("title").asText("");
+                            writer.add(node.path("id").asText(name + "#" + lineNumber), title.isEmpty() ? text : title + "\n" + text);
+                        }
+                    }
+                }
+            } else {
+                String[] paragraphs = Files.readString(source, StandardCharsets.UTF_8).split("\\R\\s*\\R");
+                for (int i = 0; i < paragraphs.length; i++) {
+                    if (!paragraphs[i].isBlank()) {
+                        writer.add(name + "#" + (i + 1), paragraphs[i].trim());
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] distinct(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static final class Hit {
+        final int segment;
+        final int passage;
+        final double score;
+
+        Hit(int segment, int passage, double score) {
+            this.segment = segment;
+            this.passage = passage;
+            this.score = score;
+        }
+    }
+
+    /**
+     * A read-only mapped segment. Layout after the header: dictionary (hash, document frequency,
+     * postings position), postings (passage, term frequency), passage lengths, passage record
+     * positions, and the records (id length, id, text length, text; UTF-8).
+     */
+    private final class Segment {
+        final String collection;
+        final MappedByteBuffer buffer;
+        final int passages;
+        final int terms;
+        final long totalLength;
+        final int dictionaryAt;
+        final int lengthsAt;
+        final int recordsAt;
+
+        Segment(String collection, MappedByteBuffer buffer) {
+            this.collection = collection;
+            this.buffer = buffer;
+            this.passages = buffer.getInt(8);
+            this.terms = buffer.getInt(12);
+            this.totalLength = buffer.getLong(16);
+            this.dictionaryAt = HEADER_SIZE;
+            this.lengthsAt = buffer.getInt(24);
+            this.recordsAt = buffer.getInt(28);
+        }
+
+        // Dictionary slot of the term, or -1
+        int find(int term) {
+            int low = 0;
+            int high = terms - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int value = buffer.getInt(dictionaryAt + mid * DICT_ENTRY_SIZE);
+                if (value < term) {
+                    low = mid + 1;
+                } else if (value > term) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        int documentFrequency(int entry) {
+            return buffer.getInt(dictionaryAt + entry * DICT_ENTRY_SIZE + 4);
+        }
+
+        int postingsAt(int entry) {
+            return buffer.getInt(dictionaryAt + entry * DICT_ENTRY_SIZE + 8);
+        }
+
+        void search(int segmentIndex, int[] entries, Integer[] order, double[] idf, double[] remaining,
+                    double averageLength, int k, PriorityQueue<Hit> top) {
+            ScoreTable scores = new ScoreTable();
+            int phase = 0;
+            // Phase 1: full postings while an unseen passage could still reach the top k
+            for (; phase < order.length; phase++) {
+                int entry = entries[order[phase]];
+                if (entry < 0) {
+                    continue;
+                }
+                int count = documentFrequency(entry);
+                if (count > maxPostings && scores.size > 0) {
+                    break;
+                }
+                if (top.size() + scores.size >= k && remaining[phase] <= threshold(scores, top, k)) {
+                    break;
+                }
+                // A query of common terms only is served from the first postings of the rarest one
+                count = Math.min(count, maxPostings);
+                int at = postingsAt(entry);
+                for (int i = 0; i < count; i++) {
+                    int passage = buffer.getInt(at + i * POSTING_SIZE);
+                    int frequency = buffer.getInt(at + i * POSTING_SIZE + 4);
+                    scores.add(passage, termScore(idf[order[phase]], frequency, passage, averageLength));
+                }
+            }
+            // Phase 2: the remaining terms only refine the passages that can still reach the top k,
+            // walking candidates and postings together in passage order
+            int[] passages = new int[scores.size];
+            double[] values = new double[scores.size];
+            scores.sorted(passages, values);
+            double threshold = phase < order.length ? threshold(values, top, k) : 0.0;
+            for (; phase < order.length; phase++) {
+                int entry = entries[order[phase]];
+                if (entry < 0) {
+                    continue;
+                }
+                int at = postingsAt(entry);
+                int count = documentFrequency(entry);
+                int from = 0;
+                for (int c = 0; c < passages.length && from < count; c++) {
+                    if (values[c] + remaining[phase] <= threshold) {
+                        continue;
+                    }
+                    from = seek(at, from, count, passages[c]);
+                    if (from < count && buffer.getInt(at + from * POSTING_SIZE) == passages[c]) {
+                        int frequency = buffer.getInt(at + from * POSTING_SIZE + 4);
+                        values[c] += termScore(idf[order[phase]], frequency, passages[c], averageLength);
+                    }
+                }
+            }
+            for (int c = 0; c < passages.length; c++) {
+                if (top.size() < k || values[c] > top.peek().score) {
+                    offer(top, new Hit(segmentIndex, passages[c], values[c]), k);
+                }
+            }
+        }
+
+        private double termScore(double idf, int frequency, int passage, double averageLength) {
+            int length = buffer.getInt(lengthsAt + passage * 4);
+            return idf * frequency * (k1 + 1) / (frequency + k1 * (1 - b + b * length / averageLength));
+        }
+
+        // First posting at or after position from whose passage is >= the target: gallop, then bisect
+        private int seek(int at, int from, int count, int passage) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < count && buffer.getInt(at + high * POSTING_SIZE) < passage) {
+                low = high + 1;
+                high = from + step;
+                step <<= 1;
+            }
+            high = Math.min(high, count);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (buffer.getInt(at + mid * POSTING_SIZE) < passage) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        Passage passage(int passage, double score, int maxChars) {
+            int at = buffer.getInt(recordsAt + passage * 4);
+            byte[] id = new byte[buffer.getInt(at)];
+            buffer.get(at + 4, id);
+            at += 4 + id.length;
+            byte[] text = new byte[buffer.getInt(at)];
+            buffer.get(at + 4, text);
+            String value = new String(text, StandardCharsets.UTF_8);
+            return new Passage(new String(id, StandardCharsets.UTF_8), collection,
+                value.length() > maxChars ? value.substring(0, maxChars) + "..." : value, score);
+        }
+    }
+
+    // The k-th best score so far; partial scores are lower bounds, so this never over-prunes
+    private static double threshold(ScoreTable scores, PriorityQueue<Hit> top, int k) {
+        double[] values = new double[scores.size];
+        scores.sorted(null, values);
+        return threshold(values, top, k);
+    }
+
+    private static double threshold(double[] values, PriorityQueue<Hit> top, int k) {
+        // Min-heap of the k best scores in a plain array
+        double[] heap = new double[k];
+        int size = 0;
+        for (Hit hit : top) {
+            size = offerScore(heap, size, hit.score);
+        }
+        for (double value : values) {
+            size = offerScore(heap, size, value);
+        }
+        return size < k ? 0.0 : heap[0];
+    }
+
+    private static int offerScore(double[] heap, int size, double score) {
+        if (size < heap.length) {
+            int i = size++;
+            heap[i] = score;
+            while (i > 0 && heap[(i - 1) / 2] > heap[i]) {
+                double swap = heap[i];
+                heap[i] = heap[(i - 1) / 2];
+                heap[(i - 1) / 2] = swap;
+                i = (i - 1) / 2;
+            }
+        } else if (score > heap[0]) {
+            heap[0] = score;
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (heap[i] <= heap[child]) {
+                    break;
+                }
+                double swap = heap[i];
+                heap[i] = heap[child];
+                heap[child] = swap;
+                i = child;
+            }
+        }
+        return size;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int k) {
+        if (top.size() < k) {
+            top.add(hit);
+        } else if (hit.score > top.peek().score) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    // Open-addressing passage -> score accumulator; -1 marks an empty slot
+    private static final class ScoreTable {
+        int[] keys = empty(64);
+        double[] values = new double[64];
+        int size;
+
+        void add(int passage, double score) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(passage) & mask;
+            while (keys[slot] >= 0 && keys[slot] != passage) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] < 0) {
+                keys[slot] = passage;
+                size++;
+            }
+            values[slot] += score;
+        }
+
+        // Copies the entries into passage order; passages may be null when only the values are needed
+        void sorted(int[] passages, double[] values) {
+            long[] packed = new long[size];
+            int count = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] >= 0) {
+                    packed[count++] = (long) keys[slot] << 32 | slot;
+                }
+            }
+            if (passages != null) {
+                Arrays.sort(packed);
+            }
+            for (int i = 0; i < count; i++) {
+                int slot = (int) packed[i];
+                if (passages != null) {
+                    passages[i] = keys[slot];
+                }
+                values[i] = this.values[slot];
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = empty(oldKeys.length * 2);
+            values = new double[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] >= 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int[] empty(int size) {
+            int[] keys = new int[size];
+            Arrays.fill(keys, -1);
+            return keys;
+        }
+
+        private static int mix(int value) {
+            return value * 0x9E3779B9 ^ (value >>> 16);
+        }
+    }
+
+    /**
+     * Builds segments of at most {@code kb.segment.max.passages} passages. Postings are collected in
+     * memory; passage records are spooled to a temporary file and appended when the segment is sealed.
+     */
+    private final class SegmentWriter implements AutoCloseable {
+        private final Path index;
+        private final String collection;
+        private int sequence;
+        private Map<Integer, int[]> postings;
+        private Map<Integer, Integer> postingCounts;
+        private int[] lengths;
+        private int[] recordOffsets;
+        private int passages;
+        private long totalLength;
+        private Path spool;
+        private DataOutputStream records;
+        private long recordBytes;
+
+        SegmentWriter(Path index, String collection) throws IOException {
+            this.index = index;
+            this.collection = collection;
+            reset();
+        }
+
+        private void reset() throws IOException {
+            postings = new HashMap<>();
+            postingCounts = new HashMap<>();
+            lengths = new int[1024];
+            recordOffsets = new int[1024];
+            passages = 0;
+            totalLength = 0;
+            recordBytes = 0;
+            spool = Files.createTempFile(index, collection, ".records");
+            records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spool)));
+        }
+
+        void add(String id, String text) throws IOException {
+            byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+            byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+            if (passages == maxSegmentPassages || recordBytes + 8 + idBytes.length + textBytes.length > MAX_SEGMENT_TEXT_BYTES) {
+                seal();
+                reset();
+            }
+            int passage = passages++;
+            if (passage == lengths.length) {
+                lengths = Arrays.copyOf(lengths, passage * 2);
+                recordOffsets = Arrays.copyOf(recordOffsets, passage * 2);
+            }
+            int[] tokens = Tokenizer.ids(text);
+            lengths[passage] = tokens.length;
+            totalLength += tokens.length;
+            Arrays.sort(tokens);
+            for (int i = 0; i < tokens.length; ) {
+                int j = i;
+                while (j < tokens.length && tokens[j] == tokens[i]) {
+                    j++;
+                }
+                appendPosting(tokens[i], passage, j - i);
+                i = j;
+            }
+            recordOffsets[passage] = (int) recordBytes;
+            records.writeInt(idBytes.length);
+            records.write(idBytes);
+            records.writeInt(textBytes.length);
+            records.write(textBytes);
+            recordBytes += 8 + idBytes.length + textBytes.length;
+        }
+
+        private void appendPosting(int term, int passage, int frequency) {
+            int count = postingCounts.getOrDefault(term, 0);
+            int[] list = postings.get(term);
+            if (list == null) {
+                list = new int[4];
+                postings.put(term, list);
+            } else if (count * 2 + 2 > list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                postings.put(term, list);
+            }
+            list[count * 2] = passage;
+            list[count * 2 + 1] = frequency;
+            postingCounts.put(term, count + 1);
+        }
+
+        private void seal() throws IOException {
+            records.close();
+            if (passages == 0) {
+                Files.delete(spool);
+                return;
+            }
+            int[] terms = postings.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            long postingsBytes = 0;
+            for (int term : terms) {
+                postingsBytes += (long) postingCounts.get(term) * POSTING_SIZE;
+            }
+            long postingsAt = HEADER_SIZE + (long) terms.length * DICT_ENTRY_SIZE;
+            long lengthsAt = postingsAt + postingsBytes;
+            long recordsTableAt = lengthsAt + (long) passages * 4;
+            long recordsAt = recordsTableAt + (long) passages * 4;
+            if (recordsAt + recordBytes > Integer.MAX_VALUE) {
+                throw new IOException("segment exceeds 2 GB, lower kb.segment.max.passages");
+            }
+
+            Path target = index.resolve(collection + "." + sequence++ + ".seg");
+            Path temporary = index.resolve(target.getFileName() + ".tmp");
+            try (OutputStream file = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(passages);
+                out.writeInt(terms.length);
+                out.writeLong(totalLength);
+                out.writeInt((int) lengthsAt);
+                out.writeInt((int) recordsTableAt);
+                out.write(new byte[HEADER_SIZE - 32]);
+                long position = postingsAt;
+                for (int term : terms) {
+                    int count = postingCounts.get(term);
+                    out.writeInt(term);
+                    out.writeInt(count);
+                    out.writeInt((int) position);
+                    out.writeInt(0);
+                    position += (long) count * POSTING_SIZE;
+                }
+                for (int term : terms) {
+                    int[] list = postings.get(term);
+                    int count = postingCounts.get(term);
+                    for (int i = 0; i < count * 2; i++) {
+                        out.writeInt(list[i]);
+                    }
+                }
+                for (int i = 0; i < passages; i++) {
+                    out.writeInt(lengths[i]);
+                }
+                for (int i = 0; i < passages; i++) {
+                    out.writeInt((int) recordsAt + recordOffsets[i]);
+                }
+                out.flush();
+                Files.copy(spool, file);
+            } finally {
+                Files.delete(spool);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            seal();
+        }
+    }
+}
@@ -2,22 +2,40 @@ package io.a2a.examples.llmjudge;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.apache.http.Header;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 @ApplicationScoped
 public class LLMService {
@@ -42,161 +60,717 @@ public class LLMService {
     @ConfigProperty(name = "llm.timeout", defaultValue = "30")
     int timeoutSeconds;
 
+    @ConfigProperty(name = "llm.pool.max.connections", defaultValue = "64")
+    int maxConnections;
+
+    @ConfigProperty(name = "llm.max.tokens.brief", defaultValue = "300")
+    int briefMaxTokens;
+
+    @ConfigProperty(name = "llm.max.tokens.score.only", defaultValue = "120")
+    int scoreOnlyMaxTokens;
+
+    // score_only judgements also return the probability-weighted score from the token logprobs
+    @ConfigProperty(name = "llm.score.logprobs", defaultValue = "false")
+    boolean scoreLogprobs;
+
+    // json_schema (response_format), tool (forced function call) or none (JSON described in the prompt)
+    @ConfigProperty(name = "llm.structured.output", defaultValue = "json_schema")
+    String structuredOutput;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    @Inject
+    UpstreamScheduler scheduler;
+
+    @Inject
+    RubricRegistry rubricRegistry;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    static final String FALLBACK_FIELD = "fallback";
+
+    // Requests currently on the wire; each is also registered with its task's CancelHandle
+    private final Set<HttpPost> activeRequests = ConcurrentHashMap.newKeySet();
+
+    private volatile CloseableHttpClient httpClient;
+
+    // Models whose endpoint rejected structured output; they get the schema in the prompt instead
+    private final Set<String> structuredOutputUnsupported = ConcurrentHashMap.newKeySet();
+
     public boolean isConfigured() {
         return apiKey.isPresent() && !apiKey.get().trim().isEmpty();
     }
 
+    public String getModel() {
+        return model;
+    }
+
+    public double getTemperature() {
+        return temperature;
+    }
+
     public Map<String, Object> evaluateResponse(String prompt, String response, List<String> criteria) {
+        return evaluateResponse(prompt, response, criteria, JudgeSpec.DEFAULT);
+    }
+
+    public Map<String, Object> evaluateResponse(String prompt, String response, List<String> criteria, JudgeSpec judge) {
+        return evaluateResponse(prompt, response, criteria, judge, JudgeDetail.FULL, null);
+    }
+
+    public Map<String, Object> evaluateResponse(String prompt, String response, List<String> criteria, JudgeSpec judge,
+                                                JudgeDetail detail, RubricRegistry.Rubric rubric) {
         if (!isConfigured()) {
             log.warn("LLM API not configured, falling back to mock evaluation");
             return getMockEvaluation(prompt, response, criteria);
         }
 
         try {
-            String llmPrompt = buildEvaluationPrompt(prompt, response, criteria);
-            String llmResponse = callLLMAPI(llmPrompt);
-            return parseLLMResponse(llmResponse);
+            long phaseStart = System.nanoTime();
+            JudgePrompt llmPrompt = evaluationPrompt(prompt, response, criteria, rubric, detail).withSuffix(variantInstruction(judge));
+            EvaluationContext.recordPhase("prompt", phaseStart);
+            Completion completion = callLLMAPI(llmPrompt, judge);
+            phaseStart = System.nanoTime();
+            Map<String, Object> result = parseLLMResponse(completion.text());
+            if (completion.weightedScore() != null) {
+                result.put("weighted_score", completion.weightedScore());
+            }
+            EvaluationContext.recordPhase("response_parse", phaseStart);
+            return result;
+        } catch (UpstreamScheduler.RejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("LLM evaluation failed, falling back to mock: " + e.getMessage());
-            return getMockEvaluation(prompt, response, criteria);
+            recordFallback();
+            return fallback(getMockEvaluation(prompt, response, criteria));
         }
     }
 
     public Map<String, Object> scoreQuality(String content, String contentType, List<String> dimensions) {
+        return scoreQuality(content, contentType, dimensions, JudgeSpec.DEFAULT);
+    }
+
+    public Map<String, Object> scoreQuality(String content, String contentType, List<String> dimensions, JudgeSpec judge) {
+        return scoreQuality(content, contentType, dimensions, judge, JudgeDetail.FULL, null);
+    }
+
+    public Map<String, Object> scoreQuality(String content, String contentType, List<String> dimensions, JudgeSpec judge,
+                                            JudgeDetail detail, RubricRegistry.Rubric rubric) {
         if (!isConfigured()) {
             return getMockQualityScore(content, contentType, dimensions);
         }
 
         try {
-            String llmPrompt = buildQualityPrompt(content, contentType, dimensions);
-            String llmResponse = callLLMAPI(llmPrompt);
-            return parseQualityResponse(llmResponse);
+            long phaseStart = System.nanoTime();
+            JudgePrompt llmPrompt = qualityPrompt(content, contentType, dimensions, rubric, detail).withSuffix(variantInstruction(judge));
+            EvaluationContext.recordPhase("prompt", phaseStart);
+            Completion completion = callLLMAPI(llmPrompt, judge);
+            phaseStart = System.nanoTime();
+            Map<String, Object> result = parseQualityResponse(completion.text());
+            if (completion.weightedScore() != null) {
+                result.put("weighted_score", completion.weightedScore());
+            }
+            EvaluationContext.recordPhase("response_parse", phaseStart);
+            return result;
+        } catch (UpstreamScheduler.RejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("LLM quality scoring failed, falling back to mock: " + e.getMessage());
-            return getMockQualityScore(content, contentType, dimensions);
+            recordFallback();
+            return fallback(getMockQualityScore(content, contentType, dimensions));
         }
     }
 
     public Map<String, Object> checkFactualAccuracy(String claim, String domain, String verificationLevel) {
+        return checkFactualAccuracy(claim, domain, verificationLevel, JudgeSpec.DEFAULT);
+    }
+
+    public Map<String, Object> checkFactualAccuracy(String claim, String domain, String verificationLevel, JudgeSpec judge) {
+        return checkFactualAccuracy(claim, domain, verificationLevel, judge, JudgeDetail.FULL);
+    }
+
+    public Map<String, Object> checkFactualAccuracy(String claim, String domain, String verificationLevel, JudgeSpec judge, JudgeDetail detail) {
+        return checkFactualAccuracy(claim, domain, verificationLevel, judge, detail, List.of());
+    }
+
+    public Map<String, Object> checkFactualAccuracy(String claim, String domain, String verificationLevel, JudgeSpec judge, JudgeDetail detail,
+                                                    List<KnowledgeBase.Passage> evidence) {
         if (!isConfigured()) {
             return getMockFactualCheck(claim, domain);
         }
 
         try {
-            String llmPrompt = buildFactualPrompt(claim, domain, verificationLevel);
-            String llmResponse = callLLMAPI(llmPrompt);
-            return parseFactualResponse(llmResponse);
+            long phaseStart = System.nanoTime();
+            JudgePrompt llmPrompt = factualPrompt(claim, domain, verificationLevel, evidence, detail).withSuffix(variantInstruction(judge));
+            EvaluationContext.recordPhase("prompt", phaseStart);
+            Completion completion = callLLMAPI(llmPrompt, judge);
+            phaseStart = System.nanoTime();
+            Map<String, Object> result = parseFactualResponse(completion.text());
+            if (completion.weightedScore() != null) {
+                result.put("weighted_score", completion.weightedScore());
+            }
+            EvaluationContext.recordPhase("response_parse", phaseStart);
+            return result;
+        } catch (UpstreamScheduler.RejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("LLM factual check failed, falling back to mock: " + e.getMessage());
-            return getMockFactualCheck(claim, domain);
+            recordFallback();
+            return fallback(getMockFactualCheck(claim, domain));
         }
     }
 
-    private String callLLMAPI(String prompt) throws Exception {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            HttpPost request = new HttpPost(apiUrl);
-            
-            // Set headers
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Authorization", "Bearer " + apiKey);
-            
-            // Build request body
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", model);
-            requestBody.put("temperature", temperature);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("messages", List.of(
-                Map.of("role", "user", "content", prompt)
-            ));
-            
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
-            request.setEntity(new StringEntity(jsonBody));
-            
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                if (response.getStatusLine().getStatusCode() != 200) {
-                    throw new RuntimeException("LLM API error: " + responseBody);
+    public Map<String, Object> sampleEvaluateResponse(String prompt, String response, List<String> criteria,
+                                                      AdaptiveSampler.SamplingRequest sampling, JudgeDetail detail,
+                                                      RubricRegistry.Rubric rubric) {
+        Supplier<Map<String, Object>> fallback = () -> getMockEvaluation(prompt, response, criteria);
+        if (!isConfigured()) {
+            return AdaptiveSampler.sample(sampling, "overall_score", "criteria_scores", n -> AdaptiveSampler.repeat(n, fallback));
+        }
+        long phaseStart = System.nanoTime();
+        JudgePrompt llmPrompt = evaluationPrompt(prompt, response, criteria, rubric, detail);
+        EvaluationContext.recordPhase("prompt", phaseStart);
+        return AdaptiveSampler.sample(sampling, "overall_score", "criteria_scores", n -> sampleChoices(llmPrompt, n, fallback));
+    }
+
+    public Map<String, Object> sampleQualityScore(String content, String contentType, List<String> dimensions,
+                                                  AdaptiveSampler.SamplingRequest sampling, JudgeDetail detail,
+                                                  RubricRegistry.Rubric rubric) {
+        Supplier<Map<String, Object>> fallback = () -> getMockQualityScore(content, contentType, dimensions);
+        if (!isConfigured()) {
+            return AdaptiveSampler.sample(sampling, "overall_score", "dimension_scores", n -> AdaptiveSampler.repeat(n, fallback));
+        }
+        long phaseStart = System.nanoTime();
+        JudgePrompt llmPrompt = qualityPrompt(content, contentType, dimensions, rubric, detail);
+        EvaluationContext.recordPhase("prompt", phaseStart);
+        return AdaptiveSampler.sample(sampling, "overall_score", "dimension_scores", n -> sampleChoices(llmPrompt, n, fallback));
+    }
+
+    public Map<String, Object> sampleFactualAccuracy(String claim, String domain, String verificationLevel,
+                                                     AdaptiveSampler.SamplingRequest sampling, JudgeDetail detail,
+                                                     List<KnowledgeBase.Passage> evidence) {
+        Supplier<Map<String, Object>> fallback = () -> getMockFactualCheck(claim, domain);
+        if (!isConfigured()) {
+            return AdaptiveSampler.sample(sampling, "accuracy_score", null, n -> AdaptiveSampler.repeat(n, fallback));
+        }
+        long phaseStart = System.nanoTime();
+        JudgePrompt llmPrompt = factualPrompt(claim, domain, verificationLevel, evidence, detail);
+        EvaluationContext.recordPhase("prompt", phaseStart);
+        return AdaptiveSampler.sample(sampling, "accuracy_score", null, n -> sampleChoices(llmPrompt, n, fallback));
+    }
+
+    // One upstream call returning n choices; unparseable choices are dropped
+    private List<Map<String, Object>> sampleChoices(JudgePrompt llmPrompt, int n, Supplier<Map<String, Object>> fallback) {
+        try {
+            List<Completion> choices = callLLMAPIChoices(llmPrompt, JudgeSpec.DEFAULT, n);
+            long phaseStart = System.nanoTime();
+            List<Map<String, Object>> samples = new ArrayList<>();
+            for (Completion choice : choices) {
+                try {
+                    samples.add(parseLLMResponse(choice.text()));
+                } catch (Exception e) {
+                    log.warn("Skipping unparseable sample: " + e.getMessage());
                 }
-                
-                JsonNode jsonResponse = objectMapper.readTree(responseBody);
-                return jsonResponse.get("choices").get(0).get("message").get("content").asText();
             }
+            EvaluationContext.recordPhase("response_parse", phaseStart);
+            return samples;
+        } catch (UpstreamScheduler.RejectedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("LLM sampling failed: " + e.getMessage());
+            recordFallback();
+            return List.of(fallback(fallback.get()));
         }
     }
 
-    private String buildEvaluationPrompt(String prompt, String response, List<String> criteria) {
-        return String.format("""
-            You are an expert evaluator. Rate this response on a scale of 0-10.
-            
-            Original Prompt: %s
-            Response to Evaluate: %s
-            Evaluation Criteria: %s
-            
-            Please return ONLY a valid JSON response with this exact structure:
-            {
-              "overall_score": <number 0-10>,
-              "criteria_scores": {
-                <criterion>: <score 0-10>,
-                ...
-              },
-              "feedback": "<detailed explanation>",
-              "strengths": ["<strength1>", "<strength2>", ...],
-              "areas_for_improvement": ["<improvement1>", "<improvement2>", ...]
+    /**
+     * Opens up to {@code connections} pooled connections to the upstream (TCP and TLS) with cheap GET
+     * requests that never reach a model. Returns how many got an HTTP response.
+     */
+    public int warmUpConnections(int connections) {
+        if (!isConfigured() || connections <= 0) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                results.add(executor.submit(() -> {
+                    HttpGet request = new HttpGet(apiUrl);
+                    request.setHeader("Authorization", "Bearer " + apiKey.orElse(""));
+                    try (CloseableHttpResponse response = httpClient().execute(request)) {
+                        // Consuming the body returns the connection to the pool for reuse
+                        EntityUtils.consume(response.getEntity());
+                        return true;
+                    }
+                }));
             }
-            
-            Be specific, constructive, and professional in your evaluation.
-            """, prompt, response, String.join(", ", criteria));
+            int warmed = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get(timeoutSeconds, TimeUnit.SECONDS)) {
+                        warmed++;
+                    }
+                } catch (ExecutionException | TimeoutException e) {
+                    log.warn("Upstream connection warm-up failed: " + e.getMessage());
+                }
+            }
+            return warmed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    private String buildQualityPrompt(String content, String contentType, List<String> dimensions) {
-        return String.format("""
-            You are an expert content quality assessor. Rate this content on a scale of 0-10.
-            
-            Content: %s
-            Content Type: %s
-            Evaluation Dimensions: %s
-            
-            Please return ONLY a valid JSON response with this exact structure:
-            {
-              "overall_score": <number 0-10>,
-              "dimension_scores": {
-                <dimension>: <score 0-10>,
-                ...
-              },
-              "analysis": "<detailed analysis>",
-              "suggestions": ["<suggestion1>", "<suggestion2>", ...]
+    /**
+     * Aborts the upstream request currently issued by the given thread, if any.
+     */
+    public int activeRequestCount() {
+        return activeRequests.size();
+    }
+
+    /**
+     * Aborts every upstream request still on the wire; callers fall back as on any upstream failure.
+     */
+    public int abortAllActiveRequests() {
+        int aborted = 0;
+        for (HttpPost request : List.copyOf(activeRequests)) {
+            if (activeRequests.remove(request)) {
+                request.abort();
+                aborted++;
             }
-            
-            Be thorough and constructive in your assessment.
-            """, content, contentType, String.join(", ", dimensions));
+        }
+        return aborted;
     }
 
-    private String buildFactualPrompt(String claim, String domain, String verificationLevel) {
-        return String.format("""
-            You are an expert fact-checker. Verify this claim for accuracy.
-            
-            Claim: %s
-            Domain: %s
-            Verification Level: %s
+    private record Completion(String text, Double weightedScore) {
+    }
+
+    private Completion callLLMAPI(JudgePrompt prompt, JudgeSpec judge) throws Exception {
+        return callLLMAPIChoices(prompt, judge, 1).get(0);
+    }
+
+    // Structured output first. A rejection that names the structured-output fields is remembered for the
+    // model and the request retried with the schema in the prompt; any other error propagates as is.
+    private List<Completion> callLLMAPIChoices(JudgePrompt prompt, JudgeSpec judge, int n) throws Exception {
+        String modelName = judge.model() != null ? judge.model() : model;
+        if ("none".equals(structuredOutput) || structuredOutputUnsupported.contains(modelName)) {
+            return callLLMAPIChoices(prompt, false, judge, n);
+        }
+        try {
+            return callLLMAPIChoices(prompt, true, judge, n);
+        } catch (StructuredOutputRejectedException e) {
+            structuredOutputUnsupported.add(modelName);
+            metrics.counter("judge_structured_output_fallbacks_total", "Models switched to prompt-described JSON after rejecting structured output").increment();
+            log.info("Upstream rejected " + structuredOutput + " structured output for " + modelName + ", describing the JSON in the prompt instead: " + e.getMessage());
+            return callLLMAPIChoices(prompt, false, judge, n);
+        }
+    }
+
+    // Shared pooled client so upstream connections (and their TLS sessions) are reused across calls
+    private CloseableHttpClient httpClient() {
+        if (httpClient == null) {
+            synchronized (this) {
+                if (httpClient == null) {
+                    PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager(5, TimeUnit.MINUTES);
+                    pool.setMaxTotal(maxConnections);
+                    pool.setDefaultMaxPerRoute(maxConnections);
+                    pool.setValidateAfterInactivity(2000);
+                    RequestConfig requestConfig = RequestConfig.custom()
+                        .setConnectTimeout(timeoutSeconds * 1000)
+                        .setConnectionRequestTimeout(timeoutSeconds * 1000)
+                        .setSocketTimeout(timeoutSeconds * 1000)
+                        .build();
+                    httpClient = HttpClients.custom()
+                        .setConnectionManager(pool)
+                        .setDefaultRequestConfig(requestConfig)
+                        .evictIdleConnections(60, TimeUnit.SECONDS)
+                        .build();
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    @PreDestroy
+    void closeHttpClient() {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.debug("Closing upstream HTTP client failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * True when the result is a heuristic stand-in returned because the upstream call failed, so it
+     * must not be aggregated or stored as a real judgement.
+     */
+    public static boolean isFallback(Map<String, ?> result) {
+        return Boolean.TRUE.equals(result.get(FALLBACK_FIELD));
+    }
+
+    private static Map<String, Object> fallback(Map<String, Object> mock) {
+        Map<String, Object> result = new LinkedHashMap<>(mock);
+        result.put(FALLBACK_FIELD, true);
+        return result;
+    }
+
+    private void recordFallback() {
+        EvaluationContext context = EvaluationContext.current();
+        if (context != null) {
+            context.markFallback();
+        }
+        metrics.recordFallback(context != null ? context.getMethod() : null);
+    }
+
+    // Splits the round trip into queueing/network wait and generation when the upstream reports its
+    // own processing time; otherwise the whole call is recorded as a single "upstream" phase
+    private void recordUpstreamPhases(EvaluationContext context, long start, long end, Header processingHeader) {
+        if (context == null) {
+            return;
+        }
+        long processingNanos = -1;
+        if (processingHeader != null) {
+            try {
+                processingNanos = Math.min(end - start, (long) (Double.parseDouble(processingHeader.getValue()) * 1_000_000L));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed processing time header: " + processingHeader.getValue());
+            }
+        }
+        if (processingNanos < 0) {
+            context.addPhase("upstream", start, end);
+        } else {
+            context.addPhase("upstream_wait", start, end - processingNanos);
+            context.addPhase("upstream_generation", end - processingNanos, end);
+        }
+    }
+
+    private List<Completion> callLLMAPIChoices(JudgePrompt prompt, boolean structured, JudgeSpec judge, int n) throws Exception {
+        HttpPost request = new HttpPost(apiUrl);
+        
+        // Set headers
+        request.setHeader("Content-Type", "application/json");
+        request.setHeader("Authorization", "Bearer " + apiKey.orElse(""));
+        
+        // Build request body
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", judge.model() != null ? judge.model() : model);
+        requestBody.put("temperature", judge.temperature() != null ? judge.temperature() : temperature);
+        requestBody.put("max_tokens", maxTokens(prompt.detail()));
+        if (n > 1) {
+            requestBody.put("n", n);
+        }
+        requestBody.put("messages", List.of(
+            Map.of("role", "user", "content", prompt.render(structured))
+        ));
+        if (structured) {
+            addStructuredOutput(requestBody, prompt);
+        }
+        boolean logprobs = scoreLogprobs && prompt.detail() == JudgeDetail.SCORE_ONLY;
+        if (logprobs) {
+            requestBody.put("logprobs", true);
+            requestBody.put("top_logprobs", 10);
+        }
+        
+        String jsonBody = objectMapper.writeValueAsString(requestBody);
+        request.setEntity(new StringEntity(jsonBody));
+        
+        EvaluationContext context = EvaluationContext.current();
+        long queueStart = System.nanoTime();
+        UpstreamScheduler.Permit permit = scheduler.acquire(context != null ? context.getPriority() : UpstreamScheduler.INTERACTIVE);
+        EvaluationContext.recordPhase("queue", queueStart);
+        if (context != null) {
+            context.markUpstreamCall();
+        }
+        CancelHandle handle = CancelHandle.current();
+        activeRequests.add(request);
+        if (handle != null) {
+            handle.register(request);
+        }
+        metrics.upstreamStarted();
+        long start = System.nanoTime();
+        String status = "error";
+        long retryAfterSeconds = -1;
+        try (CloseableHttpResponse response = httpClient().execute(request)) {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            status = String.valueOf(response.getStatusLine().getStatusCode());
+            retryAfterSeconds = retryAfterSeconds(response.getFirstHeader("Retry-After"));
+            recordUpstreamPhases(context, start, System.nanoTime(), response.getFirstHeader("openai-processing-ms"));
             
-            Please return ONLY a valid JSON response with this exact structure:
-            {
-              "accuracy_score": <number 0-10>,
-              "verification_status": "<verified|partially_verified|unverified|disputed>",
-              "confidence": <number 0-1>,
-              "analysis": "<detailed analysis>",
-              "supporting_evidence": ["<evidence1>", "<evidence2>", ...],
-              "caveats": ["<caveat1>", "<caveat2>", ...]
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (structured && (statusCode == 400 || statusCode == 422) && StructuredOutputRejectedException.namesStructuredOutput(responseBody)) {
+                throw new StructuredOutputRejectedException(responseBody);
+            }
+            if (statusCode != 200) {
+                throw new RuntimeException("LLM API error: " + responseBody);
             }
             
-            Be objective and evidence-based in your assessment.
-            """, claim, domain, verificationLevel);
+            JsonNode jsonResponse = objectMapper.readTree(responseBody);
+            JsonNode usage = jsonResponse.path("usage");
+            if (usage.isObject()) {
+                long promptTokens = usage.path("prompt_tokens").asLong();
+                long completionTokens = usage.path("completion_tokens").asLong();
+                long cachedTokens = usage.path("prompt_tokens_details").path("cached_tokens").asLong();
+                metrics.recordTokens(promptTokens, completionTokens, cachedTokens);
+                if (context != null) {
+                    context.addUsage(promptTokens, completionTokens, cachedTokens);
+                }
+                if (prompt.rubric() != null) {
+                    rubricRegistry.recordUsage(prompt.rubric(), promptTokens, cachedTokens);
+                }
+            }
+            List<Completion> choices = new ArrayList<>();
+            for (JsonNode choice : jsonResponse.get("choices")) {
+                JsonNode toolCalls = choice.get("message").path("tool_calls");
+                String text = toolCalls.isArray() && toolCalls.size() > 0
+                    ? toolCalls.get(0).path("function").path("arguments").asText()
+                    : choice.get("message").get("content").asText();
+                choices.add(new Completion(text, logprobs ? weightedScore(choice.path("logprobs"), prompt.scoreField()) : null));
+            }
+            if (choices.isEmpty()) {
+                throw new RuntimeException("LLM API returned no choices");
+            }
+            return choices;
+        } finally {
+            long latency = System.nanoTime() - start;
+            metrics.upstreamCompleted(status, latency);
+            activeRequests.remove(request);
+            if (handle != null) {
+                handle.unregister(request);
+            }
+            // Calls we aborted ourselves say nothing about upstream capacity
+            permit.release(request.isAborted() ? null : status, latency, retryAfterSeconds);
+        }
+    }
+
+    private int maxTokens(JudgeDetail detail) {
+        switch (detail) {
+            case SCORE_ONLY:
+                return Math.min(maxTokens, scoreOnlyMaxTokens);
+            case BRIEF:
+                return Math.min(maxTokens, briefMaxTokens);
+            default:
+                return maxTokens;
+        }
     }
 
-    private Map<String, Object> parseLLMResponse(String response) throws Exception {
+    /**
+     * Expected value of the score over the alternatives the model considered for the first token of
+     * the score field, e.g. 0.6 x "8" + 0.4 x "7" = 7.6. Only whole scores 0-10 count; returns null when
+     * the field or its alternatives are not in the logprobs.
+     */
+    static Double weightedScore(JsonNode logprobs, String scoreField) {
+        JsonNode tokens = logprobs.path("content");
+        if (!tokens.isArray()) {
+            return null;
+        }
+        String field = "\"" + scoreField + "\"";
+        StringBuilder text = new StringBuilder();
+        for (JsonNode token : tokens) {
+            int fieldAt = text.indexOf(field);
+            // The first non-blank token after the colon starts the value
+            if (fieldAt >= 0 && !token.path("token").asText().isBlank() && text.substring(fieldAt + field.length()).matches("\\s*:\\s*")) {
+                double weighted = 0;
+                double total = 0;
+                for (JsonNode alternative : token.path("top_logprobs")) {
+                    String value = alternative.path("token").asText().trim();
+                    if (value.matches("\\d{1,2}") && Integer.parseInt(value) <= 10) {
+                        double probability = Math.exp(alternative.path("logprob").asDouble());
+                        weighted += probability * Integer.parseInt(value);
+                        total += probability;
+                    }
+                }
+                return total > 0 ? Math.round(weighted / total * 100.0) / 100.0 : null;
+            }
+            text.append(token.path("token").asText());
+        }
+        return null;
+    }
+
+    private void addStructuredOutput(Map<String, Object> requestBody, JudgePrompt prompt) {
+        if ("tool".equals(structuredOutput)) {
+            requestBody.put("tools", List.of(Map.of(
+                "type", "function",
+                "function", Map.of("name", prompt.schemaName(), "parameters", prompt.schema(), "strict", true)
+            )));
+            requestBody.put("tool_choice", Map.of("type", "function", "function", Map.of("name", prompt.schemaName())));
+        } else {
+            requestBody.put("response_format", Map.of(
+                "type", "json_schema",
+                "json_schema", Map.of("name", prompt.schemaName(), "schema", prompt.schema(), "strict", true)
+            ));
+        }
+    }
+
+    // Only the delta-seconds form; an HTTP-date Retry-After is treated as absent
+    private static long retryAfterSeconds(Header header) {
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(header.getValue().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private String variantInstruction(JudgeSpec judge) {
+        if (judge.promptVariant() == null) {
+            return "";
+        }
+        switch (judge.promptVariant()) {
+            case "strict":
+                return "\nGrade strictly: reserve scores above 8 for responses with no noticeable flaws.\n";
+            case "lenient":
+                return "\nGrade generously: focus on what the content achieves rather than minor flaws.\n";
+            case "concise":
+                return "\nKeep the textual fields short; the scores matter most.\n";
+            default:
+                return "";
+        }
+    }
+
+    String buildEvaluationPrompt(String prompt, String response, List<String> criteria) {
+        return evaluationPrompt(prompt, response, criteria, JudgeDetail.FULL).render(false);
+    }
+
+    String buildQualityPrompt(String content, String contentType, List<String> dimensions) {
+        return qualityPrompt(content, contentType, dimensions, JudgeDetail.FULL).render(false);
+    }
+
+    String buildFactualPrompt(String claim, String domain, String verificationLevel) {
+        return factualPrompt(claim, domain, verificationLevel, JudgeDetail.FULL).render(false);
+    }
+
+    JudgePrompt evaluationPrompt(String prompt, String response, List<String> criteria, JudgeDetail detail) {
+        return evaluationPrompt(prompt, response, criteria, null, detail);
+    }
+
+    JudgePrompt evaluationPrompt(String prompt, String response, List<String> criteria, RubricRegistry.Rubric rubric, JudgeDetail detail) {
+        String instructions = instructions("You are an expert evaluator. Rate the response below on a scale of 0-10",
+            rubric, guidance(detail, "Be specific, constructive, and professional in your evaluation.", "feedback"));
+        String inputs = rubric != null
+            ? String.format("%nOriginal Prompt: %s%nResponse to Evaluate: %s%n", prompt, response)
+            : String.format("%nOriginal Prompt: %s%nResponse to Evaluate: %s%nEvaluation Criteria: %s%n", prompt, response, String.join(", ", criteria));
+        List<String> format = new ArrayList<>(List.of(
+            "\"overall_score\": <number 0-10>",
+            "\"criteria_scores\": {\n    <criterion>: <score 0-10>,\n    ...\n  }"));
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("overall_score", JudgePrompt.number("Score 0-10"));
+        properties.put("criteria_scores", JudgePrompt.scores(criteria));
+        if (detail == JudgeDetail.FULL) {
+            format.addAll(List.of(
+                "\"feedback\": \"<detailed explanation>\"",
+                "\"strengths\": [\"<strength1>\", \"<strength2>\", ...]",
+                "\"areas_for_improvement\": [\"<improvement1>\", \"<improvement2>\", ...]"));
+            properties.put("feedback", JudgePrompt.string("Detailed explanation"));
+            properties.put("strengths", JudgePrompt.strings("Strengths of the response"));
+            properties.put("areas_for_improvement", JudgePrompt.strings("Concrete improvements"));
+        } else if (detail == JudgeDetail.BRIEF) {
+            format.add("\"feedback\": \"<one sentence>\"");
+            properties.put("feedback", JudgePrompt.string("One sentence"));
+        }
+        return new JudgePrompt("response_evaluation", rubric != null ? rubric.id() : null, detail, instructions,
+            JudgePrompt.formatInstructions(format), inputs, JudgePrompt.object(properties));
+    }
+
+    JudgePrompt qualityPrompt(String content, String contentType, List<String> dimensions, JudgeDetail detail) {
+        return qualityPrompt(content, contentType, dimensions, null, detail);
+    }
+
+    JudgePrompt qualityPrompt(String content, String contentType, List<String> dimensions, RubricRegistry.Rubric rubric, JudgeDetail detail) {
+        String instructions = instructions("You are an expert content quality assessor. Rate the content below on a scale of 0-10",
+            rubric, guidance(detail, "Be thorough and constructive in your assessment.", "analysis"));
+        String inputs = rubric != null
+            ? String.format("%nContent: %s%nContent Type: %s%n", content, contentType)
+            : String.format("%nContent: %s%nContent Type: %s%nEvaluation Dimensions: %s%n", content, contentType, String.join(", ", dimensions));
+        List<String> format = new ArrayList<>(List.of(
+            "\"overall_score\": <number 0-10>",
+            "\"dimension_scores\": {\n    <dimension>: <score 0-10>,\n    ...\n  }"));
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("overall_score", JudgePrompt.number("Score 0-10"));
+        properties.put("dimension_scores", JudgePrompt.scores(dimensions));
+        if (detail == JudgeDetail.FULL) {
+            format.addAll(List.of(
+                "\"analysis\": \"<detailed analysis>\"",
+                "\"suggestions\": [\"<suggestion1>\", \"<suggestion2>\", ...]"));
+            properties.put("analysis", JudgePrompt.string("Detailed analysis"));
+            properties.put("suggestions", JudgePrompt.strings("Concrete suggestions"));
+        } else if (detail == JudgeDetail.BRIEF) {
+            format.add("\"analysis\": \"<one sentence>\"");
+            properties.put("analysis", JudgePrompt.string("One sentence"));
+        }
+        return new JudgePrompt("quality_score", rubric != null ? rubric.id() : null, detail, instructions,
+            JudgePrompt.formatInstructions(format), inputs, JudgePrompt.object(properties));
+    }
+
+    JudgePrompt factualPrompt(String claim, String domain, String verificationLevel, JudgeDetail detail) {
+        return factualPrompt(claim, domain, verificationLevel, List.of(), detail);
+    }
+
+    // Retrieved passages go with the inputs; the instructions only change with whether there are any
+    JudgePrompt factualPrompt(String claim, String domain, String verificationLevel, List<KnowledgeBase.Passage> evidence, JudgeDetail detail) {
+        String instructions = evidence.isEmpty()
+            ? instructions("You are an expert fact-checker. Verify the claim below for accuracy",
+                null, guidance(detail, "Be objective and evidence-based in your assessment.", "analysis"))
+            : instructions("You are an expert fact-checker. Verify the claim below against the evidence passages retrieved for it",
+                null, guidance(detail, "Base the verdict on the passages; where they do not settle the claim, say so and lower the confidence."
+                    + " List the ids of the passages you relied on in supporting_evidence.", "analysis"));
+        StringBuilder inputs = new StringBuilder(String.format("%nClaim: %s%nDomain: %s%nVerification Level: %s%n", claim, domain, verificationLevel));
+        if (!evidence.isEmpty()) {
+            inputs.append("Evidence:\n");
+            for (KnowledgeBase.Passage passage : evidence) {
+                inputs.append('[').append(passage.id()).append("] ").append(passage.text()).append('\n');
+            }
+        }
+        List<String> format = new ArrayList<>(List.of(
+            "\"accuracy_score\": <number 0-10>",
+            "\"verification_status\": \"<verified|partially_verified|unverified|disputed>\"",
+            "\"confidence\": <number 0-1>"));
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("accuracy_score", JudgePrompt.number("Score 0-10"));
+        properties.put("verification_status", JudgePrompt.enumeration(List.of("verified", "partially_verified", "unverified", "disputed")));
+        properties.put("confidence", JudgePrompt.number("Confidence 0-1"));
+        if (detail == JudgeDetail.FULL) {
+            format.addAll(List.of(
+                "\"analysis\": \"<detailed analysis>\"",
+                "\"supporting_evidence\": [\"<evidence1>\", \"<evidence2>\", ...]",
+                "\"caveats\": [\"<caveat1>\", \"<caveat2>\", ...]"));
+            properties.put("analysis", JudgePrompt.string("Detailed analysis"));
+            properties.put("supporting_evidence", JudgePrompt.strings(evidence.isEmpty() ? "Evidence supporting the verdict" : "Ids of the passages supporting the verdict"));
+            properties.put("caveats", JudgePrompt.strings("Caveats and limitations"));
+        } else if (detail == JudgeDetail.BRIEF) {
+            format.add("\"analysis\": \"<one sentence>\"");
+            properties.put("analysis", JudgePrompt.string("One sentence"));
+        }
+        return new JudgePrompt("factual_check", null, detail, instructions,
+            JudgePrompt.formatInstructions(format), inputs.toString(), JudgePrompt.object(properties));
+    }
+
+    // Everything here is fixed per method, rubric and detail level, so it forms a cacheable prefix
+    private static String instructions(String task, RubricRegistry.Rubric rubric, String guidance) {
+        if (rubric == null) {
+            return task + ".\n\n" + guidance + "\n";
+        }
+        return task + " using this rubric.\n\n" + rubric.text() + "\n" + guidance + "\n";
+    }
+
+    private static String guidance(JudgeDetail detail, String full, String textField) {
+        switch (detail) {
+            case SCORE_ONLY:
+                return "Return only the scores, without any explanation.";
+            case BRIEF:
+                return "Keep the " + textField + " to a single sentence.";
+            default:
+                return full;
+        }
+    }
+
+    Map<String, Object> parseLLMResponse(String response) throws Exception {
         // Clean up the response (remove any markdown formatting)
         String cleanResponse = response.replaceAll("```json\\s*", "").replaceAll("```\\s*", "").trim();
         
@@ -204,14 +778,28 @@ public class LLMService {
         return objectMapper.convertValue(jsonNode, Map.class);
     }
 
-    private Map<String, Object> parseQualityResponse(String response) throws Exception {
+    Map<String, Object> parseQualityResponse(String response) throws Exception {
         return parseLLMResponse(response);
     }
 
-    private Map<String, Object> parseFactualResponse(String response) throws Exception {
+    Map<String, Object> parseFactualResponse(String response) throws Exception {
         return parseLLMResponse(response);
     }
 
+    // The endpoint answered 400/422 to a request carrying response_format or tools, naming those fields
+    private static final class StructuredOutputRejectedException extends RuntimeException {
+        private static final Pattern STRUCTURED_OUTPUT_ERROR = Pattern.compile("response_format|json_schema|tool|strict");
+
+        StructuredOutputRejectedException(String responseBody) {
+            super(responseBody.length() > 200 ? responseBody.substring(0, 200) : responseBody);
+        }
+
+        // True when the error is about the structured-output fields rather than, say, the prompt length
+        static boolean namesStructuredOutput(String responseBody) {
+            return STRUCTURED_OUTPUT_ERROR.matcher(responseBody.toLowerCase(Locale.ROOT)).find();
+        }
+    }
+
     // Fallback mock methods (simplified versions of current mock logic)
     private Map<String, Object> getMockEvaluation(String prompt, String response, List<String> criteria) {
         double score = Math.min(10.0, Math.max(0.0, 5.0 + (Math.random() - 0.5) * 4.0));
@@ -0,0 +1,299 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bradley-Terry ratings for candidates (models, systems) tagged in {@code compare_responses} calls.
+ * Each pairwise judgement is an online Newton step on the two log-strengths, with a step size of
+ * 1 / (accumulated Fisher information + prior precision), so ratings settle as evidence grows and
+ * the same information gives a confidence interval. Updates touch only the two candidates involved
+ * and never replay history. Boards are flushed to {@code leaderboard.file} periodically and on shutdown.
+ */
+@ApplicationScoped
+public class LeaderboardService {
+
+    private static final Logger log = Logger.getLogger(LeaderboardService.class);
+
+    public static final String DEFAULT_BOARD = "default";
+
+    // Log-strength to Elo points
+    private static final double ELO_SCALE = 400.0 / Math.log(10);
+
+    @ConfigProperty(name = "leaderboard.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "leaderboard.file", defaultValue = "data/leaderboard/leaderboards.json")
+    String file;
+
+    @ConfigProperty(name = "leaderboard.flush.interval.seconds", defaultValue = "30")
+    int flushIntervalSeconds;
+
+    // Score differences at or below this count as a tie
+    @ConfigProperty(name = "leaderboard.tie.margin", defaultValue = "0.25")
+    double tieMargin;
+
+    // Prior standard deviation of a new candidate, in Elo points
+    @ConfigProperty(name = "leaderboard.prior.sd", defaultValue = "350")
+    double priorSd;
+
+    @ConfigProperty(name = "leaderboard.base.rating", defaultValue = "1500")
+    double baseRating;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        load();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records every pair of a multi-way comparison. {@code scores} are aligned with
+     * {@code candidateIds}; pairs with the same id are skipped. Returns the updated ratings of the
+     * candidates involved.
+     */
+    public Map<String, Object> recordComparison(String boardName, List<String> candidateIds, List<Double> scores) {
+        Board board = boards.computeIfAbsent(boardName, Board::new);
+        int judgements = 0;
+        for (int i = 0; i < candidateIds.size(); i++) {
+            for (int j = i + 1; j < candidateIds.size(); j++) {
+                if (candidateIds.get(i).equals(candidateIds.get(j))) {
+                    continue;
+                }
+                double diff = scores.get(i) - scores.get(j);
+                double outcome = Math.abs(diff) <= tieMargin ? 0.5 : diff > 0 ? 1.0 : 0.0;
+                update(board.rating(candidateIds.get(i)), board.rating(candidateIds.get(j)), outcome);
+                judgements++;
+            }
+        }
+        board.judgements.addAndGet(judgements);
+        dirty = true;
+        metrics.counter("judge_leaderboard_judgements_total", "Pairwise judgements applied to leaderboards").add(judgements);
+
+        Map<String, Object> ratings = new LinkedHashMap<>();
+        for (String id : candidateIds) {
+            ratings.put(id, board.rating(id).toMap(this));
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("name", boardName);
+        summary.put("judgements", judgements);
+        summary.put("ratings", ratings);
+        return summary;
+    }
+
+    /**
+     * Current ranking of a board, best first, with 95% confidence intervals.
+     */
+    public Map<String, Object> query(String boardName, int limit, int minMatches) {
+        Board board = boards.get(boardName);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("leaderboard", boardName);
+        result.put("leaderboards", boards.keySet().stream().sorted().toList());
+        if (board == null) {
+            result.put("judgements", 0);
+            result.put("candidates", List.of());
+            return result;
+        }
+
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        board.ratings.forEach((id, rating) -> {
+            Map<String, Object> entry = rating.toMap(this);
+            if (((Number) entry.get("matches")).longValue() >= minMatches) {
+                candidates.add(entry);
+            }
+        });
+        candidates.sort((a, b) -> Double.compare((Double) b.get("rating"), (Double) a.get("rating")));
+        List<Map<String, Object>> ranked = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, candidates.size()); i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("rank", i + 1);
+            entry.put("id", candidates.get(i).get("id"));
+            entry.putAll(candidates.get(i));
+            ranked.add(entry);
+        }
+        result.put("judgements", board.judgements.get());
+        result.put("candidates", ranked);
+        return result;
+    }
+
+    // Both steps use the pre-update strengths; the two ratings are locked in id order
+    private void update(Rating a, Rating b, double outcome) {
+        Rating first = a.id.compareTo(b.id) < 0 ? a : b;
+        Rating second = first == a ? b : a;
+        double priorPrecision = 1.0 / Math.pow(priorSd / ELO_SCALE, 2);
+        synchronized (first) {
+            synchronized (second) {
+                double expected = 1.0 / (1.0 + Math.exp(b.strength - a.strength));
+                double information = expected * (1.0 - expected);
+                a.information += information;
+                b.information += information;
+                a.strength += (outcome - expected) / (a.information + priorPrecision);
+                b.strength -= (outcome - expected) / (b.information + priorPrecision);
+                a.record(outcome);
+                b.record(1.0 - outcome);
+            }
+        }
+    }
+
+    void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Map<String, Object> state = new LinkedHashMap<>();
+        boards.forEach((name, board) -> state.put(name, board.snapshot()));
+        try {
+            Path path = Paths.get(file);
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), state);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to write leaderboards: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            Map<String, Map<String, Object>> state = objectMapper.readValue(path.toFile(), Map.class);
+            state.forEach((name, snapshot) -> boards.put(name, Board.restore(name, snapshot)));
+            log.info("Loaded " + boards.size() + " leaderboards from " + path.toAbsolutePath());
+        } catch (Exception e) {
+            log.warn("Failed to load leaderboards from " + path.toAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    private static final class Board {
+        final String name;
+        final Map<String, Rating> ratings = new ConcurrentHashMap<>();
+        final AtomicLong judgements = new AtomicLong();
+
+        Board(String name) {
+            this.name = name;
+        }
+
+        Rating rating(String id) {
+            return ratings.computeIfAbsent(id, Rating::new);
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> candidates = new LinkedHashMap<>();
+            ratings.forEach((id, rating) -> {
+                synchronized (rating) {
+                    candidates.put(id, List.of(rating.strength, rating.information, rating.wins, rating.losses, rating.ties));
+                }
+            });
+            return Map.of("judgements", judgements.get(), "candidates", candidates);
+        }
+
+        @SuppressWarnings("unchecked")
+        static Board restore(String name, Map<String, Object> snapshot) {
+            Board board = new Board(name);
+            board.judgements.set(((Number) snapshot.get("judgements")).longValue());
+            ((Map<String, List<Number>>) snapshot.get("candidates")).forEach((id, values) -> {
+                Rating rating = board.rating(id);
+                rating.strength = values.get(0).doubleValue();
+                rating.information = values.get(1).doubleValue();
+                rating.wins = values.get(2).longValue();
+                rating.losses = values.get(3).longValue();
+                rating.ties = values.get(4).longValue();
+            });
+            return board;
+        }
+    }
+
+    // Mutable state is guarded by the instance monitor
+    private static final class Rating {
+        final String id;
+        double strength;
+        double information;
+        long wins;
+        long losses;
+        long ties;
+
+        Rating(String id) {
+            this.id = id;
+        }
+
+        void record(double outcome) {
+            if (outcome == 1.0) {
+                wins++;
+            } else if (outcome == 0.0) {
+                losses++;
+            } else {
+                ties++;
+            }
+        }
+
+        synchronized Map<String, Object> toMap(LeaderboardService service) {
+            double priorPrecision = 1.0 / Math.pow(service.priorSd / ELO_SCALE, 2);
+            double rating = service.baseRating + strength * ELO_SCALE;
+            double halfWidth = 1.96 * ELO_SCALE / Math.sqrt(information + priorPrecision);
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("rating", ScoreStats.round(rating));
+            map.put("ci95", List.of(ScoreStats.round(rating - halfWidth), ScoreStats.round(rating + halfWidth)));
+            map.put("matches", wins + losses + ties);
+            map.put("wins", wins);
+            map.put("losses", losses);
+            map.put("ties", ties);
+            return map;
+        }
+    }
+}
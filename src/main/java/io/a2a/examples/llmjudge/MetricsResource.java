@@ -0,0 +1,19 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+
+@Path("/metrics")
+public class MetricsResource {
+
+    @Inject
+    JudgeMetrics metrics;
+
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public String scrape() {
+        return metrics.scrape();
+    }
+}
@@ -0,0 +1,173 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.vertx.core.http.HttpServerRequest;
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Wire formats for JSON-RPC payloads. Reads and writes the Smile and CBOR binary encodings of the
+ * same JSON-RPC objects (selected by {@code Content-Type} and {@code Accept}), and compresses
+ * responses for clients that send {@code Accept-Encoding: gzip} or {@code deflate} once the body
+ * reaches {@code http.compression.min.bytes}. Streamed bulk output is compressed without a threshold
+ * and flushed per line. Compressed request bodies are inflated by the HTTP layer
+ * ({@code quarkus.http.enable-decompression}).
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+@Consumes({PayloadCodec.SMILE, PayloadCodec.CBOR})
+@Produces({PayloadCodec.SMILE, PayloadCodec.CBOR})
+public class PayloadCodec implements MessageBodyReader<Object>, MessageBodyWriter<Object>, ContainerRequestFilter, WriterInterceptor {
+
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = "application/cbor";
+
+    private static final String ENCODING = "judge.response.encoding";
+
+    private static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+    private static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+
+    @ConfigProperty(name = "http.compression.enabled", defaultValue = "true")
+    boolean compressionEnabled;
+
+    // Smaller bodies are sent as is: below roughly one packet gzip saves nothing worth the CPU
+    @ConfigProperty(name = "http.compression.min.bytes", defaultValue = "1024")
+    int compressionMinBytes;
+
+    @Inject
+    HttpServerRequest httpRequest;
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = mapperFor(mediaType);
+        return mapper.readValue(entityStream, mapper.constructType(genericType));
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return mapperFor(mediaType) != null && !StreamingOutput.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        mapperFor(mediaType).writeValue(entityStream, entity);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (compressionEnabled) {
+            String encoding = negotiateEncoding(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+            if (encoding != null) {
+                requestContext.setProperty(ENCODING, encoding);
+            }
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(ENCODING) instanceof String encoding)
+            || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+        OutputStream original = context.getOutputStream();
+        context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (context.getEntity() instanceof StreamingOutput) {
+            context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+            DeflaterOutputStream compressed = compress(original, encoding);
+            context.setOutputStream(compressed);
+            context.proceed();
+            compressed.finish();
+            return;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        context.setOutputStream(body);
+        context.proceed();
+        if (body.size() < compressionMinBytes) {
+            body.writeTo(original);
+            return;
+        }
+        // JAX-RS headers were already handed to the HTTP layer when the body writer ran
+        httpRequest.response().putHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        DeflaterOutputStream compressed = compress(original, encoding);
+        body.writeTo(compressed);
+        compressed.finish();
+    }
+
+    private ObjectMapper mapperFor(MediaType mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        if (mediaType.isCompatible(SMILE_TYPE)) {
+            return smileMapper;
+        }
+        if (mediaType.isCompatible(CBOR_TYPE)) {
+            return cborMapper;
+        }
+        return null;
+    }
+
+    // Sync flush keeps streamed lines flowing instead of waiting for a full deflate block
+    private static DeflaterOutputStream compress(OutputStream out, String encoding) throws IOException {
+        return "gzip".equals(encoding) ? new GZIPOutputStream(out, true) : new DeflaterOutputStream(out, true);
+    }
+
+    // gzip is preferred over deflate; codings listed with q=0 are refused
+    static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (parts.length > 1 && parts[1].replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (name.equals("gzip")) {
+                return "gzip";
+            }
+            deflate |= name.equals("deflate");
+        }
+        return deflate ? "deflate" : null;
+    }
+}
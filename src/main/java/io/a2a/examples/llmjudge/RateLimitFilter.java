@@ -1,5 +1,6 @@
 package io.a2a.examples.llmjudge;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.core.Response;
@@ -7,6 +8,8 @@ import jakarta.ws.rs.ext.Provider;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,18 +24,39 @@ public class RateLimitFilter implements ContainerRequestFilter {
     @ConfigProperty(name = "rate.limit.window.minutes", defaultValue = "60")
     int windowMinutes;
 
+    @Inject
+    JudgeMetrics metrics;
+
     private final ConcurrentHashMap<String, RateLimitInfo> rateLimitMap = new ConcurrentHashMap<>();
 
     @Override
     public void filter(ContainerRequestContext requestContext) {
+        // Normalize to the form without a leading slash, e.g. "jsonrpc" or "jsonrpc/bulk"
         String path = requestContext.getUriInfo().getPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
         
         // Only rate limit evaluation endpoints
-        if (!path.equals("jsonrpc")) {
+        if (!path.equals("jsonrpc") && !path.startsWith("jsonrpc/")) {
             return;
         }
         
-        String clientIP = getClientIP(requestContext);
+        if (!tryAcquire(getClientIP(requestContext))) {
+            requestContext.abortWith(
+                Response.status(429)
+                    .entity("{\"error\": \"Rate limit exceeded\", \"message\": \"Too many requests\"}")
+                    .header("Retry-After", "3600")
+                    .build()
+            );
+        }
+    }
+    
+    /**
+     * Counts one request against the client's window; false once the window is used up. WebSocket
+     * connections and gRPC calls are counted once, when they are opened.
+     */
+    public boolean tryAcquire(String clientIP) {
         RateLimitInfo rateLimitInfo = rateLimitMap.computeIfAbsent(clientIP, k -> new RateLimitInfo());
         
         long currentTime = System.currentTimeMillis();
@@ -48,21 +72,51 @@ public class RateLimitFilter implements ContainerRequestFilter {
         
         if (currentCount > maxRequests) {
             log.warn("Rate limit exceeded for IP: " + clientIP + " (count: " + currentCount + ")");
-            requestContext.abortWith(
-                Response.status(429)
-                    .entity("{\"error\": \"Rate limit exceeded\", \"message\": \"Too many requests\"}")
-                    .header("Retry-After", "3600")
-                    .build()
-            );
+            metrics.recordRateLimitRejection();
+            return false;
         }
+        return true;
     }
-    
+
+    /**
+     * Current windows per client as {@code {count, last_reset}}, for the shutdown snapshot.
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new HashMap<>();
+        rateLimitMap.forEach((client, info) -> snapshot.put(client, Map.of(
+            "count", info.count.get(),
+            "last_reset", info.lastReset
+        )));
+        return snapshot;
+    }
+
+    /**
+     * Reinstates windows that have not expired yet; returns how many were restored.
+     */
+    public int restore(Map<String, Map<String, Object>> snapshot) {
+        long windowStart = System.currentTimeMillis() - (windowMinutes * 60 * 1000);
+        int restored = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            long lastReset = ((Number) entry.getValue().get("last_reset")).longValue();
+            if (lastReset < windowStart) {
+                continue;
+            }
+            RateLimitInfo info = new RateLimitInfo();
+            info.count.set(((Number) entry.getValue().get("count")).intValue());
+            info.lastReset = lastReset;
+            rateLimitMap.put(entry.getKey(), info);
+            restored++;
+        }
+        return restored;
+    }
+
     private String getClientIP(ContainerRequestContext requestContext) {
         String xForwardedFor = requestContext.getHeaderString("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
             return xForwardedFor.split(",")[0].trim();
         }
-        return requestContext.getHeaderString("X-Real-IP");
+        String realIP = requestContext.getHeaderString("X-Real-IP");
+        return realIP != null ? realIP : "unknown";
     }
     
     private static class RateLimitInfo {
@@ -0,0 +1,298 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Reference-based metrics computed locally, without an LLM call: exact match, token F1, ROUGE-L,
+ * BLEU and BM25 of each candidate against a gold reference. Texts are tokenized once into token
+ * hashes ({@link Tokenizer#ids}); overlaps are counted by merging sorted int/long arrays and the LCS
+ * keeps two rows, so scoring allocates a few arrays per candidate and no boxed maps. Batches of at
+ * least {@code reference.parallel.threshold} candidates are scored across cores. BM25 treats the
+ * reference as the query and the batch as the corpus.
+ */
+@ApplicationScoped
+public class ReferenceMetrics {
+
+    static final List<String> METRICS = List.of("exact_match", "token_f1", "rouge_l", "bleu", "bm25");
+
+    private static final int BLEU_MAX_ORDER = 4;
+
+    @ConfigProperty(name = "reference.parallel.threshold", defaultValue = "16")
+    int parallelThreshold;
+
+    @ConfigProperty(name = "reference.bm25.k1", defaultValue = "1.2")
+    double k1;
+
+    @ConfigProperty(name = "reference.bm25.b", defaultValue = "0.75")
+    double b;
+
+    /**
+     * Scores every candidate with the requested metrics. Each entry holds the candidate's
+     * {@code index} and one value per metric in 0-1, except {@code bm25}, which is the raw score
+     * alongside {@code bm25_normalized} (divided by its upper bound for this reference).
+     */
+    public List<Map<String, Object>> score(String reference, List<String> candidates, List<String> metrics) {
+        int[] referenceIds = Tokenizer.ids(reference);
+        int[] referenceSorted = sorted(referenceIds);
+        int size = candidates.size();
+        int[][] candidateIds = new int[size][];
+        int[][] candidateSorted = new int[size][];
+        range(size).forEach(i -> {
+            candidateIds[i] = Tokenizer.ids(candidates.get(i));
+            candidateSorted[i] = sorted(candidateIds[i]);
+        });
+
+        Bm25 bm25 = metrics.contains("bm25") ? new Bm25(referenceSorted, candidateSorted) : null;
+        List<Map<String, Object>> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(null);
+        }
+        range(size).forEach(i -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            for (String metric : metrics) {
+                switch (metric) {
+                    case "exact_match":
+                        result.put(metric, Arrays.equals(candidateIds[i], referenceIds) ? 1.0 : 0.0);
+                        break;
+                    case "token_f1":
+                        result.put(metric, round(tokenF1(candidateSorted[i], referenceSorted)));
+                        break;
+                    case "rouge_l":
+                        result.put(metric, round(rougeL(candidateIds[i], referenceIds)));
+                        break;
+                    case "bleu":
+                        result.put(metric, round(bleu(candidateIds[i], referenceIds)));
+                        break;
+                    case "bm25":
+                        double score = bm25.score(candidateSorted[i]);
+                        result.put(metric, round(score));
+                        result.put("bm25_normalized", round(bm25.upperBound > 0 ? score / bm25.upperBound : 0.0));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            results.set(i, result);
+        });
+        return results;
+    }
+
+    /**
+     * Indices of the candidates whose {@code metric} is at least {@code min}, best first, at most
+     * {@code topK} of them (all when topK &lt;= 0). BM25 is compared by its normalized value.
+     */
+    public List<Integer> select(List<Map<String, Object>> scored, String metric, double min, int topK) {
+        String field = "bm25".equals(metric) ? "bm25_normalized" : metric;
+        List<Integer> selected = new ArrayList<>();
+        for (Map<String, Object> result : scored) {
+            if (((Number) result.get(field)).doubleValue() >= min) {
+                selected.add((Integer) result.get("index"));
+            }
+        }
+        selected.sort(Comparator.comparingDouble(i -> -((Number) scored.get(i).get(field)).doubleValue()));
+        return topK > 0 && selected.size() > topK ? new ArrayList<>(selected.subList(0, topK)) : selected;
+    }
+
+    private IntStream range(int size) {
+        IntStream range = IntStream.range(0, size);
+        return size >= parallelThreshold ? range.parallel() : range;
+    }
+
+    static double tokenF1(int[] candidateSorted, int[] referenceSorted) {
+        if (candidateSorted.length == 0 || referenceSorted.length == 0) {
+            return candidateSorted.length == referenceSorted.length ? 1.0 : 0.0;
+        }
+        int overlap = overlap(candidateSorted, referenceSorted);
+        if (overlap == 0) {
+            return 0.0;
+        }
+        double precision = (double) overlap / candidateSorted.length;
+        double recall = (double) overlap / referenceSorted.length;
+        return 2 * precision * recall / (precision + recall);
+    }
+
+    // F1 of the longest common subsequence
+    static double rougeL(int[] candidate, int[] reference) {
+        if (candidate.length == 0 || reference.length == 0) {
+            return candidate.length == reference.length ? 1.0 : 0.0;
+        }
+        int[] shorter = candidate.length <= reference.length ? candidate : reference;
+        int[] longer = shorter == candidate ? reference : candidate;
+        int[] previous = new int[shorter.length + 1];
+        int[] current = new int[shorter.length + 1];
+        for (int token : longer) {
+            for (int j = 1; j <= shorter.length; j++) {
+                current[j] = token == shorter[j - 1] ? previous[j - 1] + 1 : Math.max(previous[j], current[j - 1]);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int lcs = previous[shorter.length];
+        if (lcs == 0) {
+            return 0.0;
+        }
+        double precision = (double) lcs / candidate.length;
+        double recall = (double) lcs / reference.length;
+        return 2 * precision * recall / (precision + recall);
+    }
+
+    // Sentence BLEU up to 4-grams with add-one smoothing above unigrams (Lin & Och) and brevity penalty
+    static double bleu(int[] candidate, int[] reference) {
+        if (candidate.length == 0) {
+            return 0.0;
+        }
+        double logPrecision = 0.0;
+        int orders = Math.min(BLEU_MAX_ORDER, candidate.length);
+        for (int n = 1; n <= orders; n++) {
+            long[] candidateGrams = ngrams(candidate, n);
+            int matches = reference.length >= n ? overlap(candidateGrams, ngrams(reference, n)) : 0;
+            if (n == 1 && matches == 0) {
+                return 0.0;
+            }
+            int smoothing = n == 1 ? 0 : 1;
+            logPrecision += Math.log((double) (matches + smoothing) / (candidateGrams.length + smoothing));
+        }
+        double brevityPenalty = candidate.length >= reference.length ? 1.0 : Math.exp(1.0 - (double) reference.length / candidate.length);
+        return brevityPenalty * Math.exp(logPrecision / orders);
+    }
+
+    private final class Bm25 {
+        final int[] terms;
+        final double[] idf;
+        final double averageLength;
+        final double upperBound;
+
+        Bm25(int[] referenceSorted, int[][] candidateSorted) {
+            terms = distinct(referenceSorted);
+            idf = new double[terms.length];
+            double totalLength = 0;
+            for (int[] candidate : candidateSorted) {
+                totalLength += candidate.length;
+            }
+            averageLength = candidateSorted.length > 0 ? Math.max(1.0, totalLength / candidateSorted.length) : 1.0;
+            double bound = 0;
+            for (int t = 0; t < terms.length; t++) {
+                int documentFrequency = 0;
+                for (int[] candidate : candidateSorted) {
+                    if (Arrays.binarySearch(candidate, terms[t]) >= 0) {
+                        documentFrequency++;
+                    }
+                }
+                idf[t] = Math.log(1.0 + (candidateSorted.length - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                bound += idf[t] * (k1 + 1);
+            }
+            upperBound = bound;
+        }
+
+        double score(int[] candidateSorted) {
+            double lengthNorm = k1 * (1 - b + b * candidateSorted.length / averageLength);
+            double score = 0;
+            for (int t = 0; t < terms.length; t++) {
+                int frequency = frequency(candidateSorted, terms[t]);
+                if (frequency > 0) {
+                    score += idf[t] * frequency * (k1 + 1) / (frequency + lengthNorm);
+                }
+            }
+            return score;
+        }
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static int[] distinct(int[] sorted) {
+        int count = 0;
+        int[] distinct = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                distinct[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(distinct, count);
+    }
+
+    private static int frequency(int[] sorted, int token) {
+        int at = Arrays.binarySearch(sorted, token);
+        if (at < 0) {
+            return 0;
+        }
+        int from = at;
+        int to = at;
+        while (from > 0 && sorted[from - 1] == token) {
+            from--;
+        }
+        while (to < sorted.length - 1 && sorted[to + 1] == token) {
+            to++;
+        }
+        return to - from + 1;
+    }
+
+    // Size of the multiset intersection of two sorted arrays, i.e. clipped counts
+    private static int overlap(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int overlap = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                overlap++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return overlap;
+    }
+
+    private static int overlap(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int overlap = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                overlap++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return overlap;
+    }
+
+    // Sorted n-gram keys; the 32-bit token hashes are mixed into one 64-bit key per n-gram
+    private static long[] ngrams(int[] ids, int n) {
+        long[] grams = new long[ids.length - n + 1];
+        for (int i = 0; i < grams.length; i++) {
+            long key = 0;
+            for (int j = 0; j < n; j++) {
+                key = key * 0x9E3779B97F4A7C15L + (ids[i + j] & 0xFFFFFFFFL);
+            }
+            grams[i] = key;
+        }
+        Arrays.sort(grams);
+        return grams;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000.0) / 10000.0;
+    }
+}
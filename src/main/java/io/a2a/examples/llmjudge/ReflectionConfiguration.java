@@ -0,0 +1,39 @@
+package io.a2a.examples.llmjudge;
+
+import io.a2a.spec.APIKeySecurityScheme;
+import io.a2a.spec.AgentCapabilities;
+import io.a2a.spec.AgentCard;
+import io.a2a.spec.AgentCardSignature;
+import io.a2a.spec.AgentExtension;
+import io.a2a.spec.AgentInterface;
+import io.a2a.spec.AgentProvider;
+import io.a2a.spec.AgentSkill;
+import io.a2a.spec.HTTPAuthSecurityScheme;
+import io.a2a.spec.MutualTLSSecurityScheme;
+import io.a2a.spec.OAuthFlows;
+import io.a2a.spec.OpenIdConnectSecurityScheme;
+import io.a2a.spec.SecurityScheme;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Registers the A2A spec types that Jackson serializes for the agent card. Quarkus only registers
+ * resource return types automatically, so the nested card types would otherwise be missing from a
+ * native image. JSON-RPC payloads are plain maps and lists, which need no registration.
+ */
+@RegisterForReflection(targets = {
+    AgentCard.class,
+    AgentCapabilities.class,
+    AgentSkill.class,
+    AgentInterface.class,
+    AgentProvider.class,
+    AgentExtension.class,
+    AgentCardSignature.class,
+    SecurityScheme.class,
+    APIKeySecurityScheme.class,
+    HTTPAuthSecurityScheme.class,
+    MutualTLSSecurityScheme.class,
+    OAuthFlows.class,
+    OpenIdConnectSecurityScheme.class
+})
+public class ReflectionConfiguration {
+}
@@ -42,7 +42,9 @@ public class RootResource {
                 "score_quality",
                 "check_factual_accuracy",
                 "assess_relevance",
-                "compare_responses"
+                "compare_responses",
+                "evaluate_against_reference",
+                "evaluate_conversation"
             ),
             "usage", Map.of(
                 "a2a_discovery_example", Map.of(
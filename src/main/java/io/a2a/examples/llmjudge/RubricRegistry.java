@@ -0,0 +1,245 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Versioned rubrics loaded from the JSON files in {@code rubric.dir}. A rubric holds a definition,
+ * its criteria with scoring anchors, and scored examples for one evaluation method. Its prompt text
+ * is rendered once at load, so every call using the rubric starts with a byte-identical prefix that
+ * providers can serve from their prompt cache; prompt and cached tokens are tracked per rubric
+ * version to show how well that works.
+ */
+@ApplicationScoped
+public class RubricRegistry {
+
+    private static final Logger log = Logger.getLogger(RubricRegistry.class);
+
+    static final Set<String> METHODS = Set.of("evaluate_response", "score_quality");
+
+    @ConfigProperty(name = "rubric.dir", defaultValue = "rubrics")
+    String dir;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // name -> version -> rubric
+    private final Map<String, NavigableMap<Integer, Rubric>> rubrics = new ConcurrentSkipListMap<>();
+    private final Map<String, Rubric> byId = new ConcurrentHashMap<>();
+
+    // Loaded at boot so broken rubric files show up in the startup log
+    void onStart(@Observes StartupEvent event) {
+        Path path = Paths.get(dir);
+        if (!Files.isDirectory(path)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.json")) {
+            for (Path file : files) {
+                try {
+                    register(parse(objectMapper.readValue(file.toFile(), Map.class)));
+                } catch (Exception e) {
+                    log.warn("Skipping rubric " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read rubrics from " + path.toAbsolutePath() + ": " + e.getMessage());
+        }
+        log.info("Loaded " + rubrics.values().stream().mapToInt(Map::size).sum() + " rubric versions from " + path.toAbsolutePath());
+    }
+
+    void register(Rubric rubric) {
+        rubrics.computeIfAbsent(rubric.name(), name -> new TreeMap<>()).put(rubric.version(), rubric);
+        byId.put(rubric.id(), rubric);
+    }
+
+    /**
+     * Resolves {@code name} (latest version) or {@code name@version} for the given method; returns
+     * null when there is no such rubric for that method.
+     */
+    public Rubric find(String reference, String method) {
+        int at = reference.lastIndexOf('@');
+        NavigableMap<Integer, Rubric> versions = rubrics.get(at < 0 ? reference : reference.substring(0, at));
+        if (versions == null) {
+            return null;
+        }
+        Rubric rubric;
+        if (at < 0) {
+            rubric = versions.lastEntry().getValue();
+        } else {
+            try {
+                rubric = versions.get(Integer.parseInt(reference.substring(at + 1)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return rubric != null && rubric.method().equals(method) ? rubric : null;
+    }
+
+    public void recordUsage(String id, long promptTokens, long cachedTokens) {
+        Rubric rubric = byId.get(id);
+        if (rubric == null) {
+            return;
+        }
+        rubric.calls.increment();
+        rubric.promptTokens.add(promptTokens);
+        rubric.cachedTokens.add(cachedTokens);
+        metrics.counter("judge_rubric_prompt_tokens_total", "Prompt tokens sent with a rubric", "rubric", id).add(promptTokens);
+        metrics.counter("judge_rubric_cached_tokens_total", "Prompt tokens of rubric calls served from the provider cache", "rubric", id).add(cachedTokens);
+    }
+
+    /**
+     * All rubric versions with their criteria and cached-token ratio (cached / prompt tokens).
+     */
+    public Map<String, Object> list() {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        rubrics.forEach((name, versions) -> versions.forEach((version, rubric) -> {
+            long promptTokens = rubric.promptTokens.sum();
+            long cachedTokens = rubric.cachedTokens.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", rubric.id());
+            entry.put("name", name);
+            entry.put("version", version);
+            entry.put("latest", version.equals(versions.lastKey()));
+            entry.put("method", rubric.method());
+            entry.put("criteria", rubric.criterionNames());
+            entry.put("calls", rubric.calls.sum());
+            entry.put("prompt_tokens", promptTokens);
+            entry.put("cached_tokens", cachedTokens);
+            entry.put("cached_ratio", promptTokens > 0 ? Math.round(cachedTokens * 1000.0 / promptTokens) / 1000.0 : 0.0);
+            entries.add(entry);
+        }));
+        return Map.of("rubrics", entries);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Rubric parse(Map<String, Object> map) {
+        if (!(map.get("name") instanceof String name) || name.isBlank() || name.contains("@")) {
+            throw new IllegalArgumentException("name is required and may not contain '@'");
+        }
+        if (!(map.get("version") instanceof Integer version) || version < 1) {
+            throw new IllegalArgumentException("version must be a positive integer");
+        }
+        if (!(map.get("method") instanceof String method) || !METHODS.contains(method)) {
+            throw new IllegalArgumentException("method must be one of " + METHODS);
+        }
+        if (!(map.get("criteria") instanceof List<?> criteria) || criteria.isEmpty()) {
+            throw new IllegalArgumentException("at least one criterion is required");
+        }
+
+        List<String> names = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        text.append("Rubric: ").append(name).append(" (version ").append(version).append(")\n");
+        if (map.get("definition") instanceof String definition) {
+            text.append(definition.trim()).append('\n');
+        }
+        text.append("\nCriteria:\n");
+        for (Object item : criteria) {
+            Map<String, Object> criterion = (Map<String, Object>) item;
+            if (!(criterion.get("name") instanceof String criterionName) || criterionName.isBlank()) {
+                throw new IllegalArgumentException("every criterion needs a name");
+            }
+            names.add(criterionName);
+            text.append("- ").append(criterionName);
+            if (criterion.get("description") instanceof String description) {
+                text.append(": ").append(description.trim());
+            }
+            text.append('\n');
+            if (criterion.get("anchors") instanceof Map<?, ?> anchors) {
+                // Ordered by score so the rendering does not depend on the file's key order
+                TreeMap<Double, String> ordered = new TreeMap<>();
+                anchors.forEach((score, anchor) -> ordered.put(Double.parseDouble(String.valueOf(score)), String.valueOf(anchor).trim()));
+                ordered.forEach((score, anchor) -> text.append("  ")
+                    .append(score == Math.rint(score) ? String.valueOf(score.longValue()) : String.valueOf(score))
+                    .append(": ").append(anchor).append('\n'));
+            }
+        }
+        if (map.get("examples") instanceof List<?> examples && !examples.isEmpty()) {
+            text.append("\nExamples:\n");
+            int index = 1;
+            for (Object item : examples) {
+                Map<String, Object> example = (Map<String, Object>) item;
+                text.append("Example ").append(index++).append('\n');
+                for (String field : List.of("prompt", "response", "content")) {
+                    if (example.get(field) instanceof String value) {
+                        text.append(Character.toUpperCase(field.charAt(0))).append(field.substring(1)).append(": ").append(value.trim()).append('\n');
+                    }
+                }
+                if (example.get("scores") instanceof Map<?, ?> scores) {
+                    List<String> parts = new ArrayList<>();
+                    scores.forEach((criterion, score) -> parts.add(criterion + "=" + score));
+                    text.append("Scores: ").append(String.join(", ", parts)).append('\n');
+                }
+                if (example.get("rationale") instanceof String rationale) {
+                    text.append("Rationale: ").append(rationale.trim()).append('\n');
+                }
+            }
+        }
+        return new Rubric(name, version, method, List.copyOf(names), text.toString());
+    }
+
+    public static final class Rubric {
+        private final String name;
+        private final int version;
+        private final String method;
+        private final List<String> criterionNames;
+        private final String text;
+        final LongAdder calls = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder cachedTokens = new LongAdder();
+
+        Rubric(String name, int version, String method, List<String> criterionNames, String text) {
+            this.name = name;
+            this.version = version;
+            this.method = method;
+            this.criterionNames = criterionNames;
+            this.text = text;
+        }
+
+        public String id() {
+            return name + "@" + version;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int version() {
+            return version;
+        }
+
+        public String method() {
+            return method;
+        }
+
+        public List<String> criterionNames() {
+            return criterionNames;
+        }
+
+        /** Definition, criteria with anchors and examples, as rendered into the prompt. */
+        public String text() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Small aggregation helpers for combining several judge scores into one.
+ */
+public final class ScoreStats {
+
+    private ScoreStats() {
+    }
+
+    public static double aggregate(List<Double> scores, String aggregation) {
+        if ("trimmed_mean".equals(aggregation)) {
+            return trimmedMean(scores, 0.2);
+        }
+        if ("mean".equals(aggregation)) {
+            return mean(scores);
+        }
+        return median(scores);
+    }
+
+    public static double mean(List<Double> scores) {
+        if (scores.isEmpty()) return 0.0;
+        double sum = 0.0;
+        for (double score : scores) {
+            sum += score;
+        }
+        return sum / scores.size();
+    }
+
+    public static double median(List<Double> scores) {
+        if (scores.isEmpty()) return 0.0;
+        double[] sorted = sorted(scores);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2.0;
+    }
+
+    // Drops the given fraction of scores from each end before averaging
+    public static double trimmedMean(List<Double> scores, double trimFraction) {
+        if (scores.isEmpty()) return 0.0;
+        double[] sorted = sorted(scores);
+        int trim = (int) Math.floor(sorted.length * trimFraction);
+        if (sorted.length - 2 * trim <= 0) {
+            return median(scores);
+        }
+        double sum = 0.0;
+        for (int i = trim; i < sorted.length - trim; i++) {
+            sum += sorted[i];
+        }
+        return sum / (sorted.length - 2 * trim);
+    }
+
+    public static double variance(List<Double> scores) {
+        if (scores.size() < 2) return 0.0;
+        double mean = mean(scores);
+        double sum = 0.0;
+        for (double score : scores) {
+            sum += (score - mean) * (score - mean);
+        }
+        return sum / (scores.size() - 1);
+    }
+
+    public static double spread(List<Double> scores) {
+        if (scores.isEmpty()) return 0.0;
+        double[] sorted = sorted(scores);
+        return sorted[sorted.length - 1] - sorted[0];
+    }
+
+    // Fraction of scores that lie within the tolerance of the median
+    public static double agreement(List<Double> scores, double tolerance) {
+        if (scores.isEmpty()) return 0.0;
+        double median = median(scores);
+        int agreeing = 0;
+        for (double score : scores) {
+            if (Math.abs(score - median) <= tolerance) {
+                agreeing++;
+            }
+        }
+        return (double) agreeing / scores.size();
+    }
+
+    // True when at least `quorum` scores fall inside a window no wider than the tolerance
+    public static boolean hasQuorum(List<Double> scores, int quorum, double tolerance) {
+        if (quorum <= 0 || scores.size() < quorum) return false;
+        double[] sorted = sorted(scores);
+        for (int i = 0; i + quorum - 1 < sorted.length; i++) {
+            if (sorted[i + quorum - 1] - sorted[i] <= tolerance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Aggregates a nested score map (e.g. criteria_scores) key by key across several results
+    public static Map<String, Double> aggregateBreakdown(List<Map<String, Object>> results, String field, String aggregation) {
+        Map<String, List<Double>> byKey = new LinkedHashMap<>();
+        for (Map<String, Object> result : results) {
+            if (result.get(field) instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) result.get(field)).entrySet()) {
+                    if (entry.getValue() instanceof Number) {
+                        byKey.computeIfAbsent(String.valueOf(entry.getKey()), k -> new ArrayList<>())
+                            .add(((Number) entry.getValue()).doubleValue());
+                    }
+                }
+            }
+        }
+        Map<String, Double> aggregated = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Double>> entry : byKey.entrySet()) {
+            aggregated.put(entry.getKey(), round(aggregate(entry.getValue(), aggregation)));
+        }
+        return aggregated;
+    }
+
+    public static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    private static double[] sorted(List<Double> scores) {
+        double[] values = new double[scores.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = scores.get(i);
+        }
+        Arrays.sort(values);
+        return values;
+    }
+}
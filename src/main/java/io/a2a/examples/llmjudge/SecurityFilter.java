@@ -1,5 +1,6 @@
 package io.a2a.examples.llmjudge;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.core.Response;
@@ -16,9 +17,19 @@ public class SecurityFilter implements ContainerRequestFilter {
     @ConfigProperty(name = "agent.api.key")
     Optional<String> agentApiKey;
 
+    @ConfigProperty(name = "metrics.scrape.key")
+    Optional<String> metricsScrapeKey;
+
+    @Inject
+    UsageLedger usageLedger;
+
     @Override
     public void filter(ContainerRequestContext requestContext) {
+        // Normalize to the form without a leading slash, e.g. "jsonrpc" or "jsonrpc/bulk"
         String path = requestContext.getUriInfo().getPath();
+        if (path.startsWith("/")) {
+            path = path.substring(1);
+        }
         
         // Skip security for health checks and agent discovery
         if (path.equals("agent/health") || path.equals("agent") || path.equals("")) {
@@ -26,15 +37,8 @@ public class SecurityFilter implements ContainerRequestFilter {
         }
         
         // Require API key for evaluation endpoints
-        if (path.equals("jsonrpc")) {
-            String providedKey = requestContext.getHeaderString("X-API-Key");
-            
-            if (!agentApiKey.isPresent() || agentApiKey.get().isEmpty()) {
-                log.warn("No API key configured - allowing all requests");
-                return;
-            }
-            
-            if (providedKey == null || !providedKey.equals(agentApiKey.get())) {
+        if (path.equals("jsonrpc") || path.startsWith("jsonrpc/")) {
+            if (!isAuthorized(requestContext.getHeaderString("X-API-Key"))) {
                 log.warn("Unauthorized request from IP: " + getClientIP(requestContext));
                 requestContext.abortWith(
                     Response.status(401)
@@ -43,13 +47,53 @@ public class SecurityFilter implements ContainerRequestFilter {
                 );
             }
         }
+
+        // Metrics take the scrape key when set, otherwise the API key (X-API-Key or a bearer token)
+        if (path.equals("metrics")) {
+            if (!isScrapeAuthorized(scrapeCredential(requestContext))) {
+                log.warn("Unauthorized metrics scrape from IP: " + getClientIP(requestContext));
+                requestContext.abortWith(
+                    Response.status(401)
+                        .entity("{\"error\": \"Unauthorized\", \"message\": \"Valid scrape key required\"}")
+                        .build()
+                );
+            }
+        }
     }
     
+    // The agent key, or any key mapped to a tenant in usage.tenant.keys; shared with the gRPC transport
+    boolean isAuthorized(String providedKey) {
+        boolean agentKeyConfigured = agentApiKey.isPresent() && !agentApiKey.get().isEmpty();
+        if (!agentKeyConfigured && !usageLedger.hasTenantKeys()) {
+            log.warn("No API key configured - allowing all requests");
+            return true;
+        }
+        return providedKey != null
+            && (agentKeyConfigured && providedKey.equals(agentApiKey.get()) || usageLedger.tenantForKey(providedKey) != null);
+    }
+
+    private boolean isScrapeAuthorized(String providedKey) {
+        if (metricsScrapeKey.isPresent() && !metricsScrapeKey.get().isEmpty()) {
+            return metricsScrapeKey.get().equals(providedKey);
+        }
+        return isAuthorized(providedKey);
+    }
+
+    // Prometheus sends credentials as "Authorization: Bearer <key>"
+    private String scrapeCredential(ContainerRequestContext requestContext) {
+        String authorization = requestContext.getHeaderString("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        return requestContext.getHeaderString("X-API-Key");
+    }
+
     private String getClientIP(ContainerRequestContext requestContext) {
         String xForwardedFor = requestContext.getHeaderString("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
             return xForwardedFor.split(",")[0].trim();
         }
-        return requestContext.getHeaderString("X-Real-IP");
+        String realIP = requestContext.getHeaderString("X-Real-IP");
+        return realIP != null ? realIP : "unknown";
     }
 }
@@ -0,0 +1,74 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stamps the arrival time of each request so the JSON-RPC handler can time body parsing, reports the
+ * recorded phases in a {@code Server-Timing} header and hands the finished request to the trace
+ * exporter once the response body has been serialized.
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION - 100)
+public class ServerTimingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final String RECEIVED_AT = "judge.received.nanos";
+    static final String CONTEXT = "judge.evaluation.context";
+
+    @Inject
+    TraceExporter traceExporter;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(RECEIVED_AT, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!(requestContext.getProperty(CONTEXT) instanceof EvaluationContext context)) {
+            return;
+        }
+        // The body has not been written yet, so serialization only shows up in the trace
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Double> phase : context.phaseMillis().entrySet()) {
+            appendMetric(header, phase.getKey(), phase.getValue());
+        }
+        appendMetric(header, "total", (System.nanoTime() - context.getReceivedNanos()) / 1e6);
+        responseContext.getHeaders().putSingle("Server-Timing", header.toString());
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext writerContext) throws IOException {
+        if (!(writerContext.getProperty(CONTEXT) instanceof EvaluationContext context)) {
+            writerContext.proceed();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            writerContext.proceed();
+        } finally {
+            long end = System.nanoTime();
+            context.addPhase("serialize", start, end);
+            traceExporter.export(context, end);
+        }
+    }
+
+    private static void appendMetric(StringBuilder header, String name, double millis) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", millis));
+    }
+}
@@ -0,0 +1,156 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shutdown sequence and hot-state persistence. By the time {@link ShutdownEvent} fires the HTTP
+ * layer has stopped accepting requests and waited for in-flight ones ({@code quarkus.shutdown.timeout});
+ * WebSocket requests and upstream calls that outlived their request (timed-out ensemble judges) then
+ * get {@code shutdown.drain.timeout} seconds before they are aborted. The similarity cache, rate-limit
+ * windows and tenant budget spend are written to {@code state.snapshot.file} and restored on the
+ * next boot.
+ */
+@ApplicationScoped
+public class ShutdownService {
+
+    private static final Logger log = Logger.getLogger(ShutdownService.class);
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @ConfigProperty(name = "shutdown.drain.timeout", defaultValue = "5")
+    int drainTimeoutSeconds;
+
+    @ConfigProperty(name = "state.snapshot.enabled", defaultValue = "true")
+    boolean snapshotEnabled;
+
+    @ConfigProperty(name = "state.snapshot.file", defaultValue = "data/state/snapshot.json")
+    String snapshotFile;
+
+    @ConfigProperty(name = "state.snapshot.max.age.minutes", defaultValue = "60")
+    int maxAgeMinutes;
+
+    @Inject
+    LLMService llmService;
+
+    @Inject
+    SimilarityCache similarityCache;
+
+    @Inject
+    RateLimitFilter rateLimitFilter;
+
+    @Inject
+    UsageLedger usageLedger;
+
+    @Inject
+    WebSocketRpcEndpoint webSocketRpcEndpoint;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    void onStart(@Observes StartupEvent event) {
+        if (snapshotEnabled) {
+            restore();
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        long start = System.nanoTime();
+        int remaining = drainUpstream();
+        log.info("Drained upstream calls in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+            + (remaining > 0 ? " (" + remaining + " aborted at the deadline)" : ""));
+        if (snapshotEnabled) {
+            snapshot();
+        }
+    }
+
+    // Returns how many calls were still running at the deadline and had to be aborted
+    int drainUpstream() {
+        long deadline = System.nanoTime() + drainTimeoutSeconds * 1_000_000_000L;
+        // WebSocket requests are not covered by the HTTP shutdown wait, so they share the deadline
+        int abortedWebSocket = webSocketRpcEndpoint.drain(deadline);
+        try {
+            while (llmService.activeRequestCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return abortedWebSocket + llmService.abortAllActiveRequests();
+    }
+
+    void snapshot() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("version", SNAPSHOT_VERSION);
+        state.put("created_at", System.currentTimeMillis());
+        state.put("model", llmService.getModel());
+        List<Map<String, Object>> cacheEntries = similarityCache.isEnabled() ? similarityCache.snapshot() : List.of();
+        Map<String, Map<String, Object>> rateLimits = rateLimitFilter.snapshot();
+        state.put("similarity_cache", cacheEntries);
+        state.put("rate_limits", rateLimits);
+        Map<String, Map<String, Object>> usage = usageLedger.snapshot();
+        state.put("usage", usage);
+
+        try {
+            Path path = Paths.get(snapshotFile);
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            // Write then rename so a kill mid-write never leaves a truncated snapshot behind
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), state);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote state snapshot to " + path.toAbsolutePath() + " (" + cacheEntries.size()
+                + " cache entries, " + rateLimits.size() + " rate-limit windows, " + usage.size() + " tenant budgets)");
+        } catch (Exception e) {
+            log.warn("Failed to write state snapshot: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void restore() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            Map<String, Object> state = objectMapper.readValue(path.toFile(), Map.class);
+            if (!Integer.valueOf(SNAPSHOT_VERSION).equals(state.get("version"))) {
+                log.warn("Ignoring state snapshot with unsupported version " + state.get("version"));
+                return;
+            }
+            long ageMillis = System.currentTimeMillis() - ((Number) state.get("created_at")).longValue();
+            if (ageMillis > maxAgeMinutes * 60_000L) {
+                log.info("Ignoring state snapshot older than " + maxAgeMinutes + " minutes");
+                return;
+            }
+
+            int cacheEntries = 0;
+            // Judgements from another model would be served as if this one made them
+            if (similarityCache.isEnabled() && llmService.getModel().equals(state.get("model"))) {
+                cacheEntries = similarityCache.restore((List<Map<String, Object>>) state.get("similarity_cache"));
+            }
+            int rateLimits = rateLimitFilter.restore((Map<String, Map<String, Object>>) state.get("rate_limits"));
+            int tenants = state.get("usage") instanceof Map
+                ? usageLedger.restore((Map<String, Map<String, Object>>) state.get("usage")) : 0;
+            log.info("Restored state snapshot from " + path.toAbsolutePath() + " (" + cacheEntries
+                + " cache entries, " + rateLimits + " rate-limit windows, " + tenants + " tenant budgets)");
+        } catch (Exception e) {
+            log.warn("Failed to restore state snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-duplicate judgement cache. Text inputs are normalized and fingerprinted with a 64-bit SimHash;
+ * candidates are found through a banded LSH index and accepted when every text field is at least
+ * {@code similarity.cache.threshold} similar (1 - hamming distance / 64).
+ *
+ * <p>The combined fingerprint is split into {@code similarity.cache.bands} bands, and a candidate must
+ * match one band exactly. Fewer, wider bands keep buckets selective as the cache fills; more bands
+ * find inputs that differ in more bits. With the default 4 bands of 16 bits, fingerprints that
+ * differ in at most 3 bits always share a band, and those further apart are found only by chance.
+ * At most {@code similarity.cache.max.candidates} entries are compared per band.
+ */
+@ApplicationScoped
+public class SimilarityCache {
+
+    private static final Logger log = Logger.getLogger(SimilarityCache.class);
+
+    // Fields that are fingerprinted per method; all other params must match exactly
+    private static final Map<String, List<String>> TEXT_FIELDS = Map.of(
+        "evaluate_response", List.of("prompt", "response"),
+        "score_quality", List.of("content"),
+        "check_factual_accuracy", List.of("claim"),
+        "assess_relevance", List.of("query", "response", "context")
+    );
+
+    private static final int SHINGLE_SIZE = 4;
+
+    @ConfigProperty(name = "similarity.cache.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "similarity.cache.threshold", defaultValue = "0.9")
+    double threshold;
+
+    @ConfigProperty(name = "similarity.cache.max.entries", defaultValue = "10000")
+    int maxEntries;
+
+    @ConfigProperty(name = "similarity.cache.bands", defaultValue = "4")
+    int bands;
+
+    @ConfigProperty(name = "similarity.cache.max.candidates", defaultValue = "64")
+    int maxCandidates;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    // Insertion ordered with access reordering, so the eldest entry is the least recently used
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, List<Entry>> buckets = new HashMap<>();
+    private long nextId;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong approximateHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a cached judgement for inputs similar enough to the given params, or null. Hits carry a
+     * {@code cache} block with the similarity and whether the match was approximate.
+     */
+    public Map<String, Object> lookup(String method, Map<String, Object> params) {
+        Fingerprint fingerprint = fingerprint(method, params);
+        if (fingerprint == null) {
+            return null;
+        }
+
+        Entry best = null;
+        double bestSimilarity = -1.0;
+        synchronized (this) {
+            for (int band = 0; band < bands; band++) {
+                List<Entry> bucket = buckets.get(bucketKey(fingerprint.namespace(), band, fingerprint.combined()));
+                if (bucket == null) {
+                    continue;
+                }
+                // The cap is per band, so a crowded first band cannot hide matches found by the others
+                int checked = 0;
+                for (int i = bucket.size() - 1; i >= 0 && checked < maxCandidates; i--, checked++) {
+                    // Newest first: recently stored judgements are the likeliest near-duplicates
+                    Entry candidate = bucket.get(i);
+                    double similarity = similarity(fingerprint, candidate.fingerprint());
+                    if (similarity >= threshold && similarity > bestSimilarity) {
+                        best = candidate;
+                        bestSimilarity = similarity;
+                    }
+                }
+            }
+            if (best != null) {
+                // Touch the entry so LRU eviction keeps it
+                entries.get(best.id());
+            }
+        }
+
+        if (best == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        boolean exact = best.fingerprint().exactHash() == fingerprint.exactHash();
+        hits.incrementAndGet();
+        if (!exact) {
+            approximateHits.incrementAndGet();
+        }
+        Map<String, Object> result = new LinkedHashMap<>(best.result());
+        result.put("cache", Map.of(
+            "hit", true,
+            "approximate", !exact,
+            "similarity", ScoreStats.round(bestSimilarity)
+        ));
+        return result;
+    }
+
+    public void store(String method, Map<String, Object> params, Map<String, Object> result) {
+        // A heuristic stand-in for a failed upstream call would otherwise keep answering after recovery
+        if (result == null || result.containsKey("error") || LLMService.isFallback(result)) {
+            return;
+        }
+        Fingerprint fingerprint = fingerprint(method, params);
+        if (fingerprint == null) {
+            return;
+        }
+
+        insert(fingerprint, result);
+    }
+
+    private synchronized void insert(Fingerprint fingerprint, Map<String, Object> result) {
+        Entry entry = new Entry(nextId++, fingerprint, result);
+        entries.put(entry.id(), entry);
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bucketKey(fingerprint.namespace(), band, fingerprint.combined()), k -> new ArrayList<>())
+                .add(entry);
+        }
+        while (entries.size() > maxEntries) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            evict(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        synchronized (this) {
+            return Map.of(
+                "enabled", enabled,
+                "entries", entries.size(),
+                "max_entries", maxEntries,
+                "hits", hits.get(),
+                "approximate_hits", approximateHits.get(),
+                "misses", misses.get()
+            );
+        }
+    }
+
+    /**
+     * Exports entries least recently used first, so {@link #restore} rebuilds the same eviction order.
+     */
+    public synchronized List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshot = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("namespace", entry.fingerprint().namespace());
+            item.put("combined", entry.fingerprint().combined());
+            item.put("fields", entry.fingerprint().fields());
+            item.put("exact_hash", entry.fingerprint().exactHash());
+            item.put("result", entry.result());
+            snapshot.add(item);
+        }
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    public int restore(List<Map<String, Object>> snapshot) {
+        int restored = 0;
+        for (Map<String, Object> item : snapshot) {
+            Map<String, Object> result = (Map<String, Object>) item.get("result");
+            // Snapshots written before fallbacks were kept out of the cache may still hold some
+            if (result == null || LLMService.isFallback(result)) {
+                continue;
+            }
+            List<Number> fields = (List<Number>) item.get("fields");
+            long[] fieldHashes = new long[fields.size()];
+            for (int i = 0; i < fieldHashes.length; i++) {
+                fieldHashes[i] = fields.get(i).longValue();
+            }
+            Fingerprint fingerprint = new Fingerprint(((Number) item.get("namespace")).longValue(),
+                ((Number) item.get("combined")).longValue(), fieldHashes, ((Number) item.get("exact_hash")).longValue());
+            insert(fingerprint, result);
+            restored++;
+        }
+        return restored;
+    }
+
+    private void evict(Entry entry) {
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(entry.fingerprint().namespace(), band, entry.fingerprint().combined());
+            List<Entry> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(entry);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    private Fingerprint fingerprint(String method, Map<String, Object> params) {
+        List<String> fields = TEXT_FIELDS.get(method);
+        if (fields == null) {
+            return null;
+        }
+
+        long[] fieldHashes = new long[fields.size()];
+        StringBuilder normalizedAll = new StringBuilder();
+        List<String> combinedFeatures = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = params.get(fields.get(i));
+            String normalized = value instanceof String ? normalize((String) value) : "";
+            List<String> features = features(normalized);
+            fieldHashes[i] = simHash(features);
+            for (String feature : features) {
+                combinedFeatures.add(i + ":" + feature);
+            }
+            normalizedAll.append(i).append('\u0000').append(normalized).append('\u0000');
+        }
+
+        // Non-text params (criteria, domain, ensemble options, ...) must match exactly
+        Map<String, Object> exactParams = new TreeMap<>(params);
+        exactParams.keySet().removeAll(fields);
+        exactParams.remove("cache");
+        String namespace;
+        try {
+            namespace = method + objectMapper.writeValueAsString(exactParams);
+        } catch (Exception e) {
+            log.debug("Skipping similarity cache for unserializable params: " + e.getMessage());
+            return null;
+        }
+
+        return new Fingerprint(hash64(namespace), simHash(combinedFeatures), fieldHashes, hash64(normalizedAll.toString()));
+    }
+
+    private double similarity(Fingerprint a, Fingerprint b) {
+        if (a.namespace() != b.namespace() || a.fields().length != b.fields().length) {
+            return 0.0;
+        }
+        // The weakest field decides, so a near-identical response cannot mask a different prompt
+        double min = 1.0;
+        for (int i = 0; i < a.fields().length; i++) {
+            min = Math.min(min, 1.0 - Long.bitCount(a.fields()[i] ^ b.fields()[i]) / 64.0);
+        }
+        return min;
+    }
+
+    private long bucketKey(long namespace, int band, long combined) {
+        int bandBits = 64 / bands;
+        long mask = bandBits >= 64 ? -1L : (1L << bandBits) - 1;
+        long bandValue = (combined >>> (band * bandBits)) & mask;
+        return hash64(namespace + ":" + band + ":" + bandValue);
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    // Character 4-gram shingles: a small edit only changes the few shingles that overlap it
+    private static List<String> features(String normalized) {
+        List<String> features = new ArrayList<>();
+        if (normalized.length() <= SHINGLE_SIZE) {
+            if (!normalized.isEmpty()) {
+                features.add(normalized);
+            }
+            return features;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= normalized.length(); i++) {
+            features.add(normalized.substring(i, i + SHINGLE_SIZE));
+        }
+        return features;
+    }
+
+    static long simHash(List<String> features) {
+        int[] weights = new int[64];
+        for (String feature : features) {
+            long hash = hash64(feature);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+        }
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    // FNV-1a followed by a murmur-style finalizer to spread the bits
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private record Fingerprint(long namespace, long combined, long[] fields, long exactHash) {
+    }
+
+    private record Entry(long id, Fingerprint fingerprint, Map<String, Object> result) {
+    }
+}
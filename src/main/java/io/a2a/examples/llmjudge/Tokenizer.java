@@ -0,0 +1,63 @@
+package io.a2a.examples.llmjudge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word tokenizer shared by the heuristic scorers and the reference metrics: a token is a run of
+ * letters or digits, lowercased; everything else separates tokens. {@link #ids} returns a 32-bit
+ * FNV-1a hash per token instead of strings, so metrics can compare and sort plain int arrays.
+ */
+final class Tokenizer {
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private Tokenizer() {
+    }
+
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    static int[] ids(String text) {
+        int[] ids = new int[Math.max(8, text.length() / 4)];
+        int count = 0;
+        int hash = FNV_OFFSET;
+        boolean inToken = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inToken = true;
+            } else if (inToken) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                ids[count++] = hash;
+                hash = FNV_OFFSET;
+                inToken = false;
+            }
+        }
+        if (inToken) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + 1);
+            }
+            ids[count++] = hash;
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+}
@@ -0,0 +1,218 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Exports each JSON-RPC request as a server span with one child span per timed phase, using the
+ * OTLP/HTTP JSON encoding. Spans are queued and sent in batches from a background thread; when
+ * tracing is disabled nothing is built or queued.
+ */
+@ApplicationScoped
+public class TraceExporter {
+
+    private static final Logger log = Logger.getLogger(TraceExporter.class);
+
+    private static final Pattern TRACE_PARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-[0-9a-f]{2}");
+
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int SPAN_KIND_SERVER = 2;
+    private static final int SPAN_KIND_CLIENT = 3;
+
+    @ConfigProperty(name = "tracing.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "tracing.otlp.endpoint", defaultValue = "http://localhost:4318/v1/traces")
+    String endpoint;
+
+    @ConfigProperty(name = "tracing.service.name", defaultValue = "llm-judge-agent")
+    String serviceName;
+
+    @ConfigProperty(name = "tracing.export.interval.ms", defaultValue = "1000")
+    long exportIntervalMs;
+
+    @ConfigProperty(name = "tracing.batch.size", defaultValue = "512")
+    int batchSize;
+
+    @ConfigProperty(name = "tracing.max.queue", defaultValue = "4096")
+    int maxQueue;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile BlockingQueue<Map<String, Object>> queue;
+    private volatile ScheduledExecutorService scheduler;
+    private volatile CloseableHttpClient httpClient;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the spans of a finished request. Continues the caller's trace when the context carries a
+     * valid W3C {@code traceparent}.
+     */
+    public void export(EvaluationContext context, long endNanos) {
+        if (!enabled) {
+            return;
+        }
+        start();
+
+        String traceId;
+        String parentSpanId = null;
+        String traceParent = context.getTraceParent();
+        if (traceParent != null && TRACE_PARENT.matcher(traceParent).matches()) {
+            traceId = traceParent.substring(3, 35);
+            parentSpanId = traceParent.substring(36, 52);
+        } else {
+            traceId = randomHex(16);
+        }
+
+        String rootId = randomHex(8);
+        List<Map<String, Object>> attributes = new ArrayList<>();
+        attributes.add(attribute("rpc.system", "jsonrpc"));
+        attributes.add(attribute("rpc.method", context.getMethod() != null ? context.getMethod() : "unknown"));
+        if (context.getOutcome() != null) {
+            attributes.add(attribute("judge.outcome", context.getOutcome()));
+        }
+        enqueue(span(traceId, rootId, parentSpanId, "jsonrpc " + JudgeMetrics.methodLabel(context.getMethod()),
+            SPAN_KIND_SERVER, context.toEpochNanos(context.getReceivedNanos()), context.toEpochNanos(endNanos), attributes));
+
+        for (EvaluationContext.Phase phase : context.getPhases()) {
+            int kind = phase.name().startsWith("upstream") ? SPAN_KIND_CLIENT : SPAN_KIND_INTERNAL;
+            enqueue(span(traceId, randomHex(8), rootId, phase.name(), kind,
+                context.toEpochNanos(phase.startNanos()), context.toEpochNanos(phase.endNanos()), List.of()));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "enabled", enabled,
+            "queued", queue != null ? queue.size() : 0,
+            "dropped", dropped.get()
+        );
+    }
+
+    private void enqueue(Map<String, Object> span) {
+        if (!queue.offer(span)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private Map<String, Object> span(String traceId, String spanId, String parentSpanId, String name, int kind,
+                                     long startEpochNanos, long endEpochNanos, List<Map<String, Object>> attributes) {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        if (parentSpanId != null) {
+            span.put("parentSpanId", parentSpanId);
+        }
+        span.put("name", name);
+        span.put("kind", kind);
+        // OTLP/JSON encodes 64-bit integers as strings
+        span.put("startTimeUnixNano", Long.toString(startEpochNanos));
+        span.put("endTimeUnixNano", Long.toString(Math.max(startEpochNanos, endEpochNanos)));
+        span.put("attributes", attributes);
+        return span;
+    }
+
+    private static Map<String, Object> attribute(String key, String value) {
+        return Map.of("key", key, "value", Map.of("stringValue", value));
+    }
+
+    private static String randomHex(int bytes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", random.nextInt(256)));
+        }
+        return hex.toString();
+    }
+
+    private void start() {
+        if (scheduler == null) {
+            synchronized (this) {
+                if (scheduler == null) {
+                    queue = new ArrayBlockingQueue<>(maxQueue);
+                    httpClient = HttpClients.createDefault();
+                    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "trace-exporter");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler.scheduleWithFixedDelay(this::flush, exportIntervalMs, exportIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private void flush() {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<Map<String, Object>> spans) {
+        Map<String, Object> resource = Map.of("attributes", List.of(attribute("service.name", serviceName)));
+        Map<String, Object> scopeSpans = new HashMap<>();
+        scopeSpans.put("scope", Map.of("name", "io.a2a.examples.llmjudge"));
+        scopeSpans.put("spans", spans);
+        Map<String, Object> payload = Map.of("resourceSpans", List.of(Map.of(
+            "resource", resource,
+            "scopeSpans", List.of(scopeSpans)
+        )));
+
+        try {
+            HttpPost request = new HttpPost(endpoint);
+            request.setEntity(new StringEntity(objectMapper.writeValueAsString(payload), ContentType.APPLICATION_JSON));
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (response.getStatusLine().getStatusCode() >= 300) {
+                    log.warn("Trace export rejected with HTTP " + response.getStatusLine().getStatusCode());
+                }
+            }
+        } catch (Exception e) {
+            dropped.addAndGet(spans.size());
+            log.warn("Trace export to " + endpoint + " failed: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            flush();
+            try {
+                httpClient.close();
+            } catch (Exception e) {
+                log.debug("Closing trace exporter client failed: " + e.getMessage());
+            }
+        }
+    }
+}
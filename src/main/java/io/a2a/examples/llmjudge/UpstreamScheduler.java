@@ -0,0 +1,336 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for upstream LLM calls. At most the current {@link AdaptiveConcurrencyLimiter}
+ * limit (never more than {@code scheduler.max.concurrent}) calls run at once; the rest wait in a
+ * bounded queue per priority class and are released by weighted fair queuing, so bulk sweeps keep
+ * making progress without starving interactive traffic. When the queues are saturated, waiters of
+ * lower classes are shed first; waiters that exceed their class's queue timeout are rejected.
+ */
+@ApplicationScoped
+public class UpstreamScheduler {
+
+    public static final String INTERACTIVE = "interactive";
+    public static final String BULK = "bulk";
+
+    private static final String GRANTED = "granted";
+
+    @ConfigProperty(name = "scheduler.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "scheduler.max.concurrent", defaultValue = "32")
+    int maxConcurrent;
+
+    @ConfigProperty(name = "scheduler.max.queued", defaultValue = "256")
+    int maxQueued;
+
+    @ConfigProperty(name = "scheduler.interactive.weight", defaultValue = "8")
+    int interactiveWeight;
+
+    @ConfigProperty(name = "scheduler.interactive.queue.size", defaultValue = "64")
+    int interactiveQueueSize;
+
+    @ConfigProperty(name = "scheduler.interactive.queue.timeout.ms", defaultValue = "10000")
+    long interactiveQueueTimeoutMillis;
+
+    @ConfigProperty(name = "scheduler.bulk.weight", defaultValue = "1")
+    int bulkWeight;
+
+    @ConfigProperty(name = "scheduler.bulk.queue.size", defaultValue = "256")
+    int bulkQueueSize;
+
+    @ConfigProperty(name = "scheduler.bulk.queue.timeout.ms", defaultValue = "120000")
+    long bulkQueueTimeoutMillis;
+
+    // Entries of the form <api key>:<class>
+    @ConfigProperty(name = "scheduler.api.key.classes")
+    Optional<List<String>> apiKeyClasses;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    @Inject
+    AdaptiveConcurrencyLimiter limiter;
+
+    // Highest priority first
+    private Lane[] lanes;
+    private final Map<String, String> classByApiKey = new HashMap<>();
+    private int active;
+    private int queued;
+    private double virtualTime;
+
+    @PostConstruct
+    void init() {
+        lanes = new Lane[] {
+            new Lane(INTERACTIVE, interactiveWeight, interactiveQueueSize, interactiveQueueTimeoutMillis),
+            new Lane(BULK, bulkWeight, bulkQueueSize, bulkQueueTimeoutMillis)
+        };
+        for (String entry : apiKeyClasses.orElse(List.of())) {
+            int separator = entry.lastIndexOf(':');
+            if (separator > 0) {
+                classByApiKey.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+        }
+        metrics.gauge("judge_scheduler_active", "Upstream calls admitted by the scheduler", () -> activeCount());
+        for (Lane lane : lanes) {
+            metrics.gauge("judge_scheduler_queue_depth", "Upstream calls waiting for admission",
+                () -> queueDepth(lane), "class", lane.name);
+        }
+    }
+
+    /**
+     * Resolves the priority class of a request: a class mapped to its API key wins, then the
+     * {@code X-Priority} header, then the given default.
+     */
+    public String classify(String priorityHeader, String apiKey, String defaultClass) {
+        if (apiKey != null && classByApiKey.containsKey(apiKey)) {
+            return lane(classByApiKey.get(apiKey)).name;
+        }
+        if (priorityHeader != null && !priorityHeader.isBlank()) {
+            return lane(priorityHeader.trim().toLowerCase(Locale.ROOT)).name;
+        }
+        return defaultClass;
+    }
+
+    /**
+     * Blocks until the call may go upstream. The returned permit must be released when it is done.
+     *
+     * @throws RejectedException if the class's queue is full, the waiter was shed or it timed out
+     */
+    public Permit acquire(String priorityClass) throws InterruptedException {
+        if (!enabled) {
+            return new Permit(null);
+        }
+        Lane lane = lane(priorityClass);
+        Waiter waiter;
+        synchronized (this) {
+            if (queued == 0 && active < limit()) {
+                active++;
+                return new Permit(lane);
+            }
+            waiter = enqueue(lane);
+        }
+
+        long start = System.nanoTime();
+        boolean signalled;
+        try {
+            signalled = waiter.latch.await(lane.queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            synchronized (this) {
+                if (waiter.state == null) {
+                    remove(waiter, "interrupted");
+                } else if (GRANTED.equals(waiter.state)) {
+                    release();
+                }
+            }
+            throw e;
+        }
+        if (!signalled) {
+            synchronized (this) {
+                // Granted between the timeout and taking the lock: keep the slot
+                if (waiter.state == null) {
+                    remove(waiter, "queue_timeout");
+                }
+            }
+        }
+        metrics.histogram("judge_scheduler_queue_wait_seconds", "Time upstream calls waited for admission",
+            "class", lane.name).observe((System.nanoTime() - start) / 1e9);
+
+        if (!GRANTED.equals(waiter.state)) {
+            throw reject(lane, waiter.state);
+        }
+        return new Permit(lane);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> queues = new HashMap<>();
+        for (Lane lane : lanes) {
+            queues.put(lane.name, lane.queue.size());
+        }
+        return Map.of(
+            "enabled", enabled,
+            "active", active,
+            "limit", limit(),
+            "max_concurrent", maxConcurrent,
+            "queued", queues
+        );
+    }
+
+    private Waiter enqueue(Lane lane) {
+        if (lane.queue.size() >= lane.queueSize) {
+            throw reject(lane, "queue_full");
+        }
+        if (queued >= maxQueued && !shedBelow(lane)) {
+            throw reject(lane, "queue_full");
+        }
+        // Virtual finish time: each call costs one unit, so a class gets slots in proportion to its weight
+        double finishTag = Math.max(virtualTime, lane.lastFinishTag) + 1.0 / lane.weight;
+        lane.lastFinishTag = finishTag;
+        Waiter waiter = new Waiter(lane, finishTag);
+        lane.queue.addLast(waiter);
+        queued++;
+        return waiter;
+    }
+
+    // Drops the newest waiter of the lowest class below the given one, if any is queued
+    private boolean shedBelow(Lane lane) {
+        for (int i = lanes.length - 1; i >= 0 && lanes[i] != lane; i--) {
+            Waiter victim = lanes[i].queue.peekLast();
+            if (victim != null) {
+                remove(victim, "shed");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void remove(Waiter waiter, String reason) {
+        if (waiter.lane.queue.remove(waiter)) {
+            queued--;
+        }
+        waiter.state = reason;
+        waiter.latch.countDown();
+    }
+
+    private synchronized void release() {
+        active--;
+        dispatch();
+    }
+
+    private void dispatch() {
+        while (active < limit() && queued > 0) {
+            Waiter next = null;
+            for (Lane lane : lanes) {
+                Waiter head = lane.queue.peekFirst();
+                if (head != null && (next == null || head.finishTag < next.finishTag)) {
+                    next = head;
+                }
+            }
+            next.lane.queue.pollFirst();
+            queued--;
+            virtualTime = next.finishTag;
+            active++;
+            next.state = GRANTED;
+            next.latch.countDown();
+        }
+    }
+
+    private int limit() {
+        return limiter.isEnabled() ? Math.min(limiter.getLimit(), maxConcurrent) : maxConcurrent;
+    }
+
+    private RejectedException reject(Lane lane, String reason) {
+        metrics.counter("judge_scheduler_rejections_total", "Upstream calls rejected by the scheduler",
+            "class", lane.name, "reason", reason).increment();
+        return new RejectedException(lane.name, reason);
+    }
+
+    // Unknown classes are treated as the lowest priority
+    private Lane lane(String name) {
+        if (name == null) {
+            return lanes[0];
+        }
+        for (Lane lane : lanes) {
+            if (lane.name.equals(name)) {
+                return lane;
+            }
+        }
+        return lanes[lanes.length - 1];
+    }
+
+    private synchronized int activeCount() {
+        return active;
+    }
+
+    private synchronized int queueDepth(Lane lane) {
+        return lane.queue.size();
+    }
+
+    /**
+     * An admitted upstream call. Releasing it reports the call's outcome to the limiter before the
+     * slot is handed on; releasing more than once is a no-op.
+     */
+    public final class Permit {
+        private final Lane lane;
+        private boolean released;
+
+        private Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        public void release(String status, long latencyNanos, long retryAfterSeconds) {
+            if (lane != null && !released) {
+                released = true;
+                limiter.onCompleted(status, latencyNanos, activeCount(), retryAfterSeconds);
+                UpstreamScheduler.this.release();
+            }
+        }
+    }
+
+    /**
+     * Thrown when a call is not admitted; surfaced to clients as an {@code OVERLOADED} error rather
+     * than a mock fallback, so callers back off.
+     */
+    public static final class RejectedException extends RuntimeException {
+        private final String priorityClass;
+        private final String reason;
+
+        RejectedException(String priorityClass, String reason) {
+            super("Upstream capacity exhausted for " + priorityClass + " traffic (" + reason + ")");
+            this.priorityClass = priorityClass;
+            this.reason = reason;
+        }
+
+        public Map<String, Object> toResult() {
+            return Map.of(
+                "error", getMessage(),
+                "error_code", "OVERLOADED",
+                "priority", priorityClass,
+                "reason", reason
+            );
+        }
+    }
+
+    private static final class Lane {
+        final String name;
+        final int weight;
+        final int queueSize;
+        final long queueTimeoutMillis;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        double lastFinishTag;
+
+        Lane(String name, int weight, int queueSize, long queueTimeoutMillis) {
+            this.name = name;
+            this.weight = Math.max(1, weight);
+            this.queueSize = queueSize;
+            this.queueTimeoutMillis = queueTimeoutMillis;
+        }
+    }
+
+    private static final class Waiter {
+        final Lane lane;
+        final double finishTag;
+        final CountDownLatch latch = new CountDownLatch(1);
+        // null while queued, then GRANTED or the rejection reason; written under the scheduler lock
+        volatile String state;
+
+        Waiter(Lane lane, double finishTag) {
+            this.lane = lane;
+            this.finishTag = finishTag;
+        }
+    }
+}
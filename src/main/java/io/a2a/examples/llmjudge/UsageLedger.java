@@ -0,0 +1,444 @@
+package io.a2a.examples.llmjudge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token and cost accounting per tenant and per method. A tenant is the name mapped to the caller's
+ * API key in {@code usage.tenant.keys}, or else the client address. Spend is priced from the upstream
+ * {@code usage} blocks and kept in hourly buckets, so each tenant has a rolling
+ * {@code usage.budget.window.hours} budget: results carry a warning past
+ * {@code usage.budget.warn.ratio} of it, and evaluations are refused once it is spent. At most
+ * {@code usage.max.address.tenants} client-address tenants are tracked; past that, those with no
+ * spend left in the window are dropped first, then the least recently active.
+ */
+@ApplicationScoped
+public class UsageLedger {
+
+    private static final Logger log = Logger.getLogger(UsageLedger.class);
+
+    public static final String ANONYMOUS = "anonymous";
+    private static final String ADDRESS_PREFIX = "ip:";
+
+    @ConfigProperty(name = "usage.price.prompt.per.1k", defaultValue = "0.03")
+    double promptPrice;
+
+    @ConfigProperty(name = "usage.price.cached.per.1k", defaultValue = "0.015")
+    double cachedPrice;
+
+    @ConfigProperty(name = "usage.price.completion.per.1k", defaultValue = "0.06")
+    double completionPrice;
+
+    // 0 means unlimited
+    @ConfigProperty(name = "usage.budget.usd", defaultValue = "0")
+    double defaultBudget;
+
+    @ConfigProperty(name = "usage.budget.window.hours", defaultValue = "24")
+    int windowHours;
+
+    @ConfigProperty(name = "usage.budget.warn.ratio", defaultValue = "0.8")
+    double warnRatio;
+
+    @ConfigProperty(name = "usage.max.address.tenants", defaultValue = "10000")
+    int maxAddressTenants;
+
+    // Entries of the form <tenant>:<usd>
+    @ConfigProperty(name = "usage.tenant.budgets")
+    Optional<List<String>> tenantBudgets;
+
+    // Entries of the form <api key>:<tenant>; these keys are also accepted by SecurityFilter
+    @ConfigProperty(name = "usage.tenant.keys")
+    Optional<List<String>> tenantKeys;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private final Map<String, String> tenantByKey = new HashMap<>();
+    private final Map<String, Double> budgetByTenant = new HashMap<>();
+    private final Map<String, TenantUsage> tenants = new ConcurrentHashMap<>();
+    private final Map<String, MethodUsage> methods = new ConcurrentHashMap<>();
+    private final AtomicInteger addressTenants = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        for (String entry : tenantKeys.orElse(List.of())) {
+            int separator = entry.lastIndexOf(':');
+            if (separator > 0) {
+                tenantByKey.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+        }
+        for (String entry : tenantBudgets.orElse(List.of())) {
+            int separator = entry.lastIndexOf(':');
+            if (separator > 0) {
+                budgetByTenant.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+            }
+        }
+    }
+
+    public boolean hasTenantKeys() {
+        return !tenantByKey.isEmpty();
+    }
+
+    public String tenantForKey(String apiKey) {
+        return apiKey != null ? tenantByKey.get(apiKey) : null;
+    }
+
+    // True for tenants named in usage.tenant.keys, as opposed to client addresses
+    public boolean isKeyTenant(String tenant) {
+        return tenant != null && tenantByKey.containsValue(tenant);
+    }
+
+    public String resolveTenant(String apiKey, String clientIp) {
+        String tenant = tenantForKey(apiKey);
+        if (tenant != null) {
+            return tenant;
+        }
+        return clientIp != null && !clientIp.equals("unknown") ? ADDRESS_PREFIX + clientIp : ANONYMOUS;
+    }
+
+    /**
+     * Address that keyless callers are billed under: the last X-Forwarded-For hop, which the nearest
+     * proxy (the Heroku router) appends and the client cannot forge, else the socket address.
+     */
+    public static String clientAddress(String xForwardedFor, String remoteAddress) {
+        if (xForwardedFor != null) {
+            int separator = xForwardedFor.lastIndexOf(',');
+            String lastHop = xForwardedFor.substring(separator + 1).trim();
+            if (!lastHop.isEmpty()) {
+                return lastHop;
+            }
+        }
+        return remoteAddress != null ? remoteAddress : "unknown";
+    }
+
+    /**
+     * Returns an error result when the tenant's budget for the current window is spent, else null.
+     */
+    public Map<String, Object> checkBudget(String tenant) {
+        double budget = budgetOf(tenant);
+        if (budget <= 0) {
+            return null;
+        }
+        TenantUsage usage = tenants.get(tenant);
+        double used = usage == null ? 0.0 : usage.rollingMicros(currentHour()) / 1e6;
+        if (used < budget) {
+            return null;
+        }
+        metrics.counter("judge_budget_rejections_total", "Evaluations refused because the tenant budget was spent").increment();
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", "Usage budget exhausted for tenant " + tenant);
+        error.put("error_code", "BUDGET_EXCEEDED");
+        error.put("tenant", tenant);
+        error.put("budget", budgetBlock(budget, used));
+        return error;
+    }
+
+    /**
+     * Books the tokens of one evaluation and returns the {@code usage} block for its result.
+     */
+    public Map<String, Object> record(String tenant, String method, EvaluationContext context) {
+        long prompt = context.getPromptTokens();
+        long completion = context.getCompletionTokens();
+        long cached = context.getCachedTokens();
+        long costMicros = Math.round(costOf(prompt, completion, cached) * 1e6);
+        long hour = currentHour();
+
+        TenantUsage tenantUsage = usageOf(tenant, hour);
+        double used = tenantUsage.add(context.getLlmCalls(), prompt, completion, cached, costMicros, hour) / 1e6;
+        methods.computeIfAbsent(JudgeMetrics.methodLabel(method), k -> new MethodUsage())
+            .add(context.getLlmCalls(), prompt, completion, cached, costMicros);
+        if (costMicros > 0) {
+            metrics.counter("judge_llm_cost_usd_total", "Estimated upstream spend").add(costMicros / 1e6);
+        }
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("tenant", tenant);
+        usage.put("llm_calls", context.getLlmCalls());
+        usage.put("prompt_tokens", prompt);
+        usage.put("completion_tokens", completion);
+        usage.put("cached_tokens", cached);
+        usage.put("total_tokens", prompt + completion);
+        usage.put("cost_usd", roundUsd(costMicros / 1e6));
+        double budget = budgetOf(tenant);
+        if (budget > 0) {
+            Map<String, Object> block = budgetBlock(budget, used);
+            usage.put("budget", block);
+            if (!"ok".equals(block.get("status")) && tenantUsage.markWarned(hour)) {
+                metrics.counter("judge_budget_warnings_total", "Tenants that crossed the budget warning ratio").increment();
+                log.warn("Tenant " + tenant + " has used " + roundUsd(used) + " of its " + budget + " USD budget");
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Aggregates for {@code usage.query}: spend per tenant over the budget window and since boot, and
+     * per-method token efficiency, least efficient method first.
+     */
+    public Map<String, Object> query(String tenantFilter) {
+        long hour = currentHour();
+        Map<String, Object> tenantStats = new LinkedHashMap<>();
+        tenants.entrySet().stream()
+            .filter(entry -> tenantFilter == null || tenantFilter.equals(entry.getKey()))
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> {
+                Map<String, Object> stats = entry.getValue().toMap(hour);
+                double budget = budgetOf(entry.getKey());
+                if (budget > 0) {
+                    stats.put("budget", budgetBlock(budget, entry.getValue().rollingMicros(hour) / 1e6));
+                }
+                tenantStats.put(entry.getKey(), stats);
+            });
+
+        List<Map<String, Object>> methodStats = new ArrayList<>();
+        methods.forEach((method, usage) -> {
+            Map<String, Object> stats = usage.toMap();
+            stats.put("method", method);
+            methodStats.add(stats);
+        });
+        methodStats.sort((a, b) -> Double.compare((Double) b.get("tokens_per_evaluation"), (Double) a.get("tokens_per_evaluation")));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("window_hours", windowHours);
+        result.put("prices_per_1k", Map.of("prompt", promptPrice, "cached", cachedPrice, "completion", completionPrice));
+        result.put("tenants", tenantStats);
+        result.put("methods", methodStats);
+        return result;
+    }
+
+    /**
+     * Hourly spend per tenant, for the shutdown snapshot; totals since boot are not carried over.
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new HashMap<>();
+        tenants.forEach((tenant, usage) -> snapshot.put(tenant, usage.snapshot()));
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    public int restore(Map<String, Map<String, Object>> snapshot) {
+        long hour = currentHour();
+        for (Map.Entry<String, Map<String, Object>> entry : snapshot.entrySet()) {
+            List<Number> hours = (List<Number>) entry.getValue().get("hours");
+            List<Number> costs = (List<Number>) entry.getValue().get("cost_micros");
+            TenantUsage usage = usageOf(entry.getKey(), hour);
+            for (int i = 0; i < hours.size(); i++) {
+                usage.restoreBucket(hours.get(i).longValue(), costs.get(i).longValue(), hour);
+            }
+        }
+        return snapshot.size();
+    }
+
+    private TenantUsage usageOf(String tenant, long hour) {
+        TenantUsage usage = tenants.get(tenant);
+        if (usage == null) {
+            if (tenant.startsWith(ADDRESS_PREFIX) && addressTenants.get() >= maxAddressTenants) {
+                evictAddressTenants(hour);
+            }
+            usage = tenants.computeIfAbsent(tenant, k -> {
+                if (k.startsWith(ADDRESS_PREFIX)) {
+                    addressTenants.incrementAndGet();
+                }
+                return new TenantUsage(windowHours);
+            });
+        }
+        usage.touch(hour);
+        return usage;
+    }
+
+    // Drops address tenants with nothing spent in the window, then the least recently active, down to 90% of the cap
+    private synchronized void evictAddressTenants(long hour) {
+        int target = Math.max(0, (int) (maxAddressTenants * 0.9) - 1);
+        List<Map.Entry<String, TenantUsage>> candidates = new ArrayList<>();
+        for (Map.Entry<String, TenantUsage> entry : tenants.entrySet()) {
+            if (entry.getKey().startsWith(ADDRESS_PREFIX)) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong((Map.Entry<String, TenantUsage> entry) -> entry.getValue().rollingMicros(hour) > 0 ? 1 : 0)
+            .thenComparingLong(entry -> entry.getValue().lastActiveHour()));
+        int evicted = 0;
+        for (Map.Entry<String, TenantUsage> entry : candidates) {
+            if (addressTenants.get() <= target) {
+                break;
+            }
+            if (tenants.remove(entry.getKey(), entry.getValue())) {
+                addressTenants.decrementAndGet();
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            metrics.counter("judge_usage_tenant_evictions_total", "Client-address tenants dropped from the usage ledger").add(evicted);
+        }
+    }
+
+    private double costOf(long prompt, long completion, long cached) {
+        long uncached = Math.max(0, prompt - cached);
+        return (uncached * promptPrice + cached * cachedPrice + completion * completionPrice) / 1000.0;
+    }
+
+    private double budgetOf(String tenant) {
+        return budgetByTenant.getOrDefault(tenant, defaultBudget);
+    }
+
+    private Map<String, Object> budgetBlock(double budget, double used) {
+        Map<String, Object> block = new LinkedHashMap<>();
+        block.put("limit_usd", budget);
+        block.put("used_usd", roundUsd(used));
+        block.put("remaining_usd", roundUsd(Math.max(0, budget - used)));
+        block.put("window_hours", windowHours);
+        block.put("status", used >= budget ? "exceeded" : used >= budget * warnRatio ? "warning" : "ok");
+        return block;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / 3_600_000L;
+    }
+
+    private static double roundUsd(double usd) {
+        return Math.round(usd * 1e6) / 1e6;
+    }
+
+    private static final class TenantUsage {
+        private final long[] bucketHours;
+        private final long[] bucketCostMicros;
+        private long evaluations;
+        private long llmCalls;
+        private long promptTokens;
+        private long completionTokens;
+        private long cachedTokens;
+        private long costMicros;
+        private long warnedHour = -1;
+        private volatile long lastActiveHour;
+
+        TenantUsage(int windowHours) {
+            bucketHours = new long[Math.max(1, windowHours)];
+            bucketCostMicros = new long[bucketHours.length];
+            Arrays.fill(bucketHours, -1);
+        }
+
+        void touch(long hour) {
+            lastActiveHour = hour;
+        }
+
+        long lastActiveHour() {
+            return lastActiveHour;
+        }
+
+        // Returns the rolling spend including this evaluation
+        synchronized long add(long calls, long prompt, long completion, long cached, long cost, long hour) {
+            evaluations++;
+            llmCalls += calls;
+            promptTokens += prompt;
+            completionTokens += completion;
+            cachedTokens += cached;
+            costMicros += cost;
+            addToBucket(hour, cost);
+            return rollingMicros(hour);
+        }
+
+        synchronized void restoreBucket(long bucketHour, long cost, long hour) {
+            if (bucketHour > hour - bucketHours.length && bucketHour <= hour) {
+                addToBucket(bucketHour, cost);
+            }
+        }
+
+        synchronized long rollingMicros(long hour) {
+            long total = 0;
+            for (int i = 0; i < bucketHours.length; i++) {
+                if (bucketHours[i] > hour - bucketHours.length) {
+                    total += bucketCostMicros[i];
+                }
+            }
+            return total;
+        }
+
+        // True once per window, the first time the tenant is past the warning ratio
+        synchronized boolean markWarned(long hour) {
+            if (warnedHour > hour - bucketHours.length) {
+                return false;
+            }
+            warnedHour = hour;
+            return true;
+        }
+
+        synchronized Map<String, Object> toMap(long hour) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("evaluations", evaluations);
+            map.put("llm_calls", llmCalls);
+            map.put("prompt_tokens", promptTokens);
+            map.put("completion_tokens", completionTokens);
+            map.put("cached_tokens", cachedTokens);
+            map.put("cost_usd", roundUsd(costMicros / 1e6));
+            map.put("window_cost_usd", roundUsd(rollingMicros(hour) / 1e6));
+            return map;
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            List<Long> hours = new ArrayList<>();
+            List<Long> costs = new ArrayList<>();
+            for (int i = 0; i < bucketHours.length; i++) {
+                if (bucketHours[i] >= 0) {
+                    hours.add(bucketHours[i]);
+                    costs.add(bucketCostMicros[i]);
+                }
+            }
+            return Map.of("hours", hours, "cost_micros", costs);
+        }
+
+        private void addToBucket(long hour, long cost) {
+            int index = (int) (hour % bucketHours.length);
+            if (bucketHours[index] != hour) {
+                bucketHours[index] = hour;
+                bucketCostMicros[index] = 0;
+            }
+            bucketCostMicros[index] += cost;
+        }
+    }
+
+    private static final class MethodUsage {
+        private long evaluations;
+        private long llmCalls;
+        private long promptTokens;
+        private long completionTokens;
+        private long cachedTokens;
+        private long costMicros;
+
+        synchronized void add(long calls, long prompt, long completion, long cached, long cost) {
+            evaluations++;
+            llmCalls += calls;
+            promptTokens += prompt;
+            completionTokens += completion;
+            cachedTokens += cached;
+            costMicros += cost;
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("evaluations", evaluations);
+            map.put("llm_calls", llmCalls);
+            map.put("prompt_tokens", promptTokens);
+            map.put("completion_tokens", completionTokens);
+            map.put("cached_tokens", cachedTokens);
+            map.put("cost_usd", roundUsd(costMicros / 1e6));
+            map.put("tokens_per_evaluation", evaluations == 0 ? 0.0 : ScoreStats.round((double) (promptTokens + completionTokens) / evaluations));
+            map.put("cost_per_evaluation_usd", evaluations == 0 ? 0.0 : roundUsd(costMicros / 1e6 / evaluations));
+            map.put("cached_prompt_ratio", promptTokens == 0 ? 0.0 : ScoreStats.round((double) cachedTokens / promptTokens));
+            return map;
+        }
+    }
+}
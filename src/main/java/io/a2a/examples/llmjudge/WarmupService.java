@@ -0,0 +1,132 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boot-time warm-up. Opens pooled upstream connections and runs synthetic evaluations through the
+ * heuristic scorers, prompt templates, judge-output parsing and JSON (de)serialization, so the JIT
+ * and lazy initialization costs are paid before traffic arrives. Readiness is reported once done.
+ */
+@ApplicationScoped
+public class WarmupService {
+
+    private static final Logger log = Logger.getLogger(WarmupService.class);
+
+    private static final List<String> SAMPLE_REQUESTS = List.of(
+        "{\"jsonrpc\":\"2.0\",\"method\":\"evaluate_response\",\"id\":1,\"params\":{\"prompt\":\"Explain machine learning\","
+            + "\"response\":\"Machine learning trains models on labelled data so they can make predictions without explicit rules.\","
+            + "\"criteria\":[\"accuracy\",\"clarity\",\"relevance\"]}}",
+        "{\"jsonrpc\":\"2.0\",\"method\":\"score_quality\",\"id\":2,\"params\":{\"content\":\"Photosynthesis converts light energy "
+            + "into chemical energy. Plants use it to produce glucose from water and carbon dioxide.\",\"content_type\":\"technical_writing\","
+            + "\"dimensions\":[\"clarity\",\"completeness\"]}}",
+        "{\"jsonrpc\":\"2.0\",\"method\":\"check_factual_accuracy\",\"id\":3,\"params\":{\"claim\":\"Water boils at 100 degrees "
+            + "Celsius at sea level.\",\"domain\":\"science\"}}",
+        "{\"jsonrpc\":\"2.0\",\"method\":\"assess_relevance\",\"id\":4,\"params\":{\"query\":\"How do vaccines work?\","
+            + "\"response\":\"Vaccines train the immune system to recognise a pathogen.\",\"context\":\"Public health FAQ\"}}",
+        "{\"jsonrpc\":\"2.0\",\"method\":\"compare_responses\",\"id\":5,\"params\":{\"prompt\":\"Define recursion\","
+            + "\"responses\":[\"A function that calls itself.\",\"Recursion solves a problem by reducing it to smaller instances of itself.\"]}}"
+    );
+
+    private static final String SAMPLE_JUDGE_OUTPUT = "```json\n{\"overall_score\": 7.5, \"criteria_scores\": {\"accuracy\": 8, "
+        + "\"clarity\": 7}, \"feedback\": \"Clear but brief.\", \"strengths\": [\"Accurate\"], \"areas_for_improvement\": [\"Add examples\"]}\n```";
+
+    @ConfigProperty(name = "warmup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "warmup.iterations", defaultValue = "300")
+    int iterations;
+
+    @ConfigProperty(name = "warmup.connections", defaultValue = "2")
+    int connections;
+
+    @ConfigProperty(name = "warmup.max.seconds", defaultValue = "30")
+    int maxSeconds;
+
+    @Inject
+    JsonRpcResource jsonRpcResource;
+
+    @Inject
+    LLMService llmService;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private volatile boolean ready;
+    private volatile long durationMillis = -1;
+    private volatile int iterationsRun;
+    private volatile int connectionsWarmed;
+
+    void onStart(@Observes StartupEvent event) {
+        metrics.gauge("judge_ready", "1 once the boot warm-up has completed", () -> ready ? 1 : 0);
+        metrics.gauge("judge_warmup_duration_seconds", "Duration of the boot warm-up",
+            () -> durationMillis < 0 ? 0 : durationMillis / 1000.0);
+        if (!enabled) {
+            durationMillis = 0;
+            ready = true;
+            return;
+        }
+        // Off the main thread so the HTTP server starts listening; readiness stays false until done
+        Thread thread = new Thread(this::warmUp, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", ready ? "READY" : "WARMING_UP");
+        status.put("warmup_enabled", enabled);
+        status.put("warmup_ms", durationMillis);
+        status.put("iterations", iterationsRun);
+        status.put("upstream_connections", connectionsWarmed);
+        return status;
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxSeconds * 1_000_000_000L;
+        try {
+            connectionsWarmed = llmService.warmUpConnections(connections);
+
+            for (int i = 0; i < iterations && System.nanoTime() < deadline; i++) {
+                for (String json : SAMPLE_REQUESTS) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> request = objectMapper.readValue(json, Map.class);
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> params = (Map<String, Object>) request.get("params");
+                    Map<String, Object> result = jsonRpcResource.evaluateHeuristically((String) request.get("method"), params);
+                    objectMapper.writeValueAsBytes(Map.of("jsonrpc", "2.0", "result", result, "id", request.get("id")));
+                }
+                llmService.buildEvaluationPrompt("Explain machine learning", "Models learn from data.", List.of("accuracy", "clarity"));
+                llmService.buildQualityPrompt("Photosynthesis converts light energy.", "technical_writing", List.of("clarity"));
+                llmService.buildFactualPrompt("Water boils at 100 degrees Celsius.", "science", "standard");
+                llmService.parseLLMResponse(SAMPLE_JUDGE_OUTPUT);
+                iterationsRun = i + 1;
+            }
+        } catch (Exception e) {
+            // A failed warm-up only costs latency, so the instance still becomes ready
+            log.warn("Warm-up stopped early: " + e.getMessage());
+        } finally {
+            durationMillis = (System.nanoTime() - start) / 1_000_000;
+            ready = true;
+            log.info("Warm-up finished in " + durationMillis + " ms (" + iterationsRun + " iterations, "
+                + connectionsWarmed + " upstream connections)");
+        }
+    }
+}
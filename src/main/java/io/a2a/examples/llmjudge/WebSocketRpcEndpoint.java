@@ -0,0 +1,313 @@
+package io.a2a.examples.llmjudge;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JSON-RPC over a persistent WebSocket at {@code /jsonrpc/ws}. Each text frame is one JSON-RPC
+ * request; requests on a connection run concurrently and each response is sent as soon as it is
+ * ready, so clients match them by {@code id}. The API key and rate limit are checked once, on the
+ * upgrade request. Once {@code websocket.max.in.flight} requests of a connection are running, reading
+ * from it is paused until one completes, which pushes back on the client through TCP.
+ *
+ * <p>Requests of all connections share {@code websocket.worker.threads} workers with a queue of
+ * {@code websocket.max.queued}; requests beyond that get an {@code OVERLOADED} result. When a socket
+ * closes, its queued requests are cancelled and its running upstream calls aborted. On shutdown,
+ * running requests are drained together with the other upstream calls.
+ */
+@ApplicationScoped
+public class WebSocketRpcEndpoint {
+
+    private static final Logger log = Logger.getLogger(WebSocketRpcEndpoint.class);
+
+    static final String PATH = "/jsonrpc/ws";
+
+    @ConfigProperty(name = "websocket.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "websocket.max.in.flight", defaultValue = "32")
+    int maxInFlight;
+
+    @ConfigProperty(name = "websocket.max.connections", defaultValue = "256")
+    int maxConnections;
+
+    @ConfigProperty(name = "websocket.worker.threads", defaultValue = "64")
+    int workerThreads;
+
+    @ConfigProperty(name = "websocket.max.queued", defaultValue = "1024")
+    int maxQueued;
+
+    @Inject
+    JsonRpcResource jsonRpcResource;
+
+    @Inject
+    SecurityFilter securityFilter;
+
+    @Inject
+    RateLimitFilter rateLimitFilter;
+
+    @Inject
+    UpstreamScheduler scheduler;
+
+    @Inject
+    UsageLedger usageLedger;
+
+    @Inject
+    JudgeMetrics metrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(maxQueued), runnable -> {
+                Thread thread = new Thread(runnable, "websocket-rpc-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        metrics.gauge("judge_websocket_connections", "Open JSON-RPC WebSocket connections", () -> connections.get());
+    }
+
+    void register(@Observes Router router) {
+        if (enabled) {
+            router.get(PATH).handler(this::upgrade);
+        }
+    }
+
+    private void upgrade(RoutingContext routingContext) {
+        String apiKey = routingContext.request().getHeader("X-API-Key");
+        String clientIP = clientIP(routingContext);
+        if (!securityFilter.isAuthorized(apiKey)) {
+            log.warn("Unauthorized WebSocket connection from IP: " + clientIP);
+            routingContext.response().setStatusCode(401).end("{\"error\": \"Unauthorized\", \"message\": \"Valid API key required\"}");
+            return;
+        }
+        if (!rateLimitFilter.tryAcquire(clientIP)) {
+            routingContext.response().setStatusCode(429).putHeader("Retry-After", "3600")
+                .end("{\"error\": \"Rate limit exceeded\", \"message\": \"Too many requests\"}");
+            return;
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            routingContext.response().setStatusCode(503).end("{\"error\": \"Too many WebSocket connections\"}");
+            return;
+        }
+
+        String tenant = usageLedger.resolveTenant(apiKey, UsageLedger.clientAddress(routingContext.request().getHeader("X-Forwarded-For"),
+            routingContext.request().remoteAddress() != null ? routingContext.request().remoteAddress().host() : null));
+        String priority = scheduler.classify(routingContext.request().getHeader("X-Priority"), apiKey, UpstreamScheduler.INTERACTIVE);
+        routingContext.request().toWebSocket().onComplete(result -> {
+            if (result.failed()) {
+                connections.decrementAndGet();
+                log.debug("WebSocket upgrade failed: " + result.cause().getMessage());
+                return;
+            }
+            Connection connection = new Connection(result.result(), tenant, priority);
+            open.add(connection);
+            result.result().textMessageHandler(connection::onMessage);
+            result.result().closeHandler(ignored -> {
+                connections.decrementAndGet();
+                open.remove(connection);
+                connection.abort();
+            });
+        });
+    }
+
+    /**
+     * Stops accepting WebSocket requests and waits until the deadline for queued and running ones.
+     * Returns how many were still pending at the deadline and had to be cancelled or aborted.
+     */
+    int drain(long deadlineNanos) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int aborted = 0;
+        for (Connection connection : open) {
+            aborted += connection.abort();
+        }
+        executor.shutdownNow();
+        return aborted;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String clientIP(RoutingContext routingContext) {
+        String xForwardedFor = routingContext.request().getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            return xForwardedFor.split(",")[0].trim();
+        }
+        String realIP = routingContext.request().getHeader("X-Real-IP");
+        if (realIP != null) {
+            return realIP;
+        }
+        return routingContext.request().remoteAddress() != null ? routingContext.request().remoteAddress().host() : "unknown";
+    }
+
+    private final class Connection {
+        private final ServerWebSocket socket;
+        private final String tenant;
+        private final String priority;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Set<Call> calls = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        Connection(ServerWebSocket socket, String tenant, String priority) {
+            this.socket = socket;
+            this.tenant = tenant;
+            this.priority = priority;
+        }
+
+        // Called on the connection's event loop; evaluations run on the worker pool
+        void onMessage(String text) {
+            if (closed) {
+                return;
+            }
+            if (inFlight.incrementAndGet() >= maxInFlight) {
+                socket.pause();
+            }
+            Call call = new Call();
+            calls.add(call);
+            try {
+                call.future = executor.submit(() -> run(call, text));
+            } catch (RejectedExecutionException e) {
+                finish(call);
+                send(overloaded(text));
+            }
+        }
+
+        private void run(Call call, String text) {
+            try {
+                if (!call.upstream.isCancelled()) {
+                    Map<String, Object> response = call.upstream.run(() -> handle(text));
+                    // An aborted call returns a fallback result that must not reach the client
+                    if (!closed) {
+                        send(response);
+                    }
+                }
+            } finally {
+                finish(call);
+            }
+        }
+
+        private void finish(Call call) {
+            if (calls.remove(call) && inFlight.getAndDecrement() >= maxInFlight && !closed) {
+                socket.resume();
+            }
+        }
+
+        // Cancels queued requests and aborts the upstream calls of running ones; returns how many were pending
+        int abort() {
+            closed = true;
+            int pending = 0;
+            for (Call call : calls) {
+                Future<?> future = call.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                call.upstream.cancel();
+                calls.remove(call);
+                pending++;
+            }
+            return pending;
+        }
+
+        private Map<String, Object> handle(String text) {
+            Map<String, Object> request;
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> parsed = objectMapper.readValue(text, Map.class);
+                request = parsed;
+            } catch (Exception e) {
+                return errorResponse(null, -32700, "Parse error: " + e.getMessage());
+            }
+            Object method = request.get("method");
+            // Bulk runs have their own endpoint
+            if (!(method instanceof String) || ((String) method).startsWith("bulk.")) {
+                return errorResponse(request.get("id"), -32601, "Method not available over WebSocket: " + method);
+            }
+            try {
+                return jsonRpcResource.handleRequest(request, tenant, priority);
+            } catch (RuntimeException e) {
+                log.warn("WebSocket " + method + " failed: " + e.getMessage());
+                return errorResponse(request.get("id"), -32603, "Internal error: " + e.getMessage());
+            }
+        }
+
+        private void send(Map<String, Object> response) {
+            if (socket.isClosed()) {
+                return;
+            }
+            try {
+                socket.writeTextMessage(objectMapper.writeValueAsString(response));
+            } catch (Exception e) {
+                log.debug("Failed to send WebSocket response: " + e.getMessage());
+            }
+        }
+
+        private Map<String, Object> overloaded(String text) {
+            Object id = null;
+            try {
+                id = objectMapper.readValue(text, Map.class).get("id");
+            } catch (Exception e) {
+                // Answered without an id
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("jsonrpc", "2.0");
+            response.put("result", Map.of(
+                "error", "WebSocket worker queue is full, retry later",
+                "error_code", "OVERLOADED"
+            ));
+            response.put("id", id);
+            return response;
+        }
+
+        private Map<String, Object> errorResponse(Object id, int code, String message) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("jsonrpc", "2.0");
+            response.put("error", Map.of("code", code, "message", message));
+            response.put("id", id);
+            return response;
+        }
+    }
+
+    // One request of a connection; its handle owns every upstream call the request makes, ensemble judges included
+    private static final class Call {
+        private volatile Future<?> future;
+        private final CancelHandle upstream = new CancelHandle();
+    }
+}
@@ -0,0 +1,92 @@
+#!/bin/bash
+# Startup and time-to-first-request benchmark across the JVM, AppCDS and native builds.
+#
+# Usage: ./startup-benchmark.sh [--build] [runs]
+#   --build   package the JVM build with an AppCDS archive first (mvn package -Pappcds);
+#             build the native executable separately with: mvn package -Pnative
+#
+# For each available profile the app is started RUNS times (default 5). Reported per run:
+#   listen_ms  process start until GET /agent/health answers 200
+#   first_ms   process start until the first evaluate_response JSON-RPC call has returned
+#   rss_mb     resident memory after the first request
+# Medians are printed and all runs are written to target/startup-benchmark.json.
+set -e
+
+cd "$(dirname "$0")"
+if [ "$1" == "--build" ]; then
+    mvn -B -q package -DskipTests -Pappcds
+    shift
+fi
+RUNS=${1:-5}
+PORT=${PORT:-18181}
+APP_DIR=target/quarkus-app
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+PROFILES=()
+[ -f "$APP_DIR/quarkus-run.jar" ] && PROFILES+=("jvm")
+[ -f "$APP_DIR/app-cds.jsa" ] && PROFILES+=("appcds")
+NATIVE=$(ls target/*-runner 2>/dev/null | head -1 || true)
+[ -n "$NATIVE" ] && PROFILES+=("native")
+if [ ${#PROFILES[@]} -eq 0 ]; then
+    echo "Nothing to benchmark: run with --build or mvn package first" >&2
+    exit 1
+fi
+
+REQUEST='{"jsonrpc":"2.0","method":"evaluate_response","params":{"prompt":"Explain machine learning","response":"Machine learning trains models on data to make predictions.","criteria":["accuracy","clarity"]},"id":1}'
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Mock mode and a scratch journal keep runs independent of API keys and earlier state
+launch() {
+    local profile=$1
+    export PORT LLM_API_KEY= AGENT_API_KEY= JOURNAL_DIR="$WORK_DIR/journal-$RANDOM"
+    case $profile in
+        # The archive records the class path relative to quarkus-app, so both JVM profiles start from there
+        jvm) cd "$APP_DIR" && exec java -jar quarkus-run.jar ;;
+        appcds) cd "$APP_DIR" && exec java -XX:SharedArchiveFile=app-cds.jsa -Xshare:auto -jar quarkus-run.jar ;;
+        native) exec "$NATIVE" ;;
+    esac
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+JSON="["
+for profile in "${PROFILES[@]}"; do
+    LISTEN=()
+    FIRST=()
+    RSS=()
+    for run in $(seq 1 "$RUNS"); do
+        start=$(now_ms)
+        launch "$profile" > "$WORK_DIR/$profile-$run.log" 2>&1 &
+        pid=$!
+        until curl -sf -o /dev/null --max-time 1 "http://127.0.0.1:$PORT/agent/health"; do
+            if ! kill -0 $pid 2>/dev/null; then
+                echo "$profile exited during startup, see log below" >&2
+                cat "$WORK_DIR/$profile-$run.log" >&2
+                exit 1
+            fi
+            sleep 0.01
+        done
+        listen=$(( $(now_ms) - start ))
+        curl -sf -o /dev/null -H 'Content-Type: application/json' -d "$REQUEST" "http://127.0.0.1:$PORT/jsonrpc"
+        first=$(( $(now_ms) - start ))
+        rss=$(awk '/VmRSS/ { printf "%.1f", $2 / 1024 }' /proc/$pid/status 2>/dev/null || echo 0)
+        kill $pid
+        wait $pid 2>/dev/null || true
+
+        LISTEN+=("$listen")
+        FIRST+=("$first")
+        RSS+=("$rss")
+        JSON="$JSON{\"profile\":\"$profile\",\"run\":$run,\"listen_ms\":$listen,\"first_ms\":$first,\"rss_mb\":$rss},"
+    done
+    printf "%-8s listen %6s ms   first request %6s ms   rss %7s MB   (median of %s)\n" "$profile" \
+        "$(printf '%s\n' "${LISTEN[@]}" | median)" "$(printf '%s\n' "${FIRST[@]}" | median)" \
+        "$(printf '%s\n' "${RSS[@]}" | median)" "$RUNS"
+done
+echo "${JSON%,}]" > target/startup-benchmark.json
+echo "Runs written to target/startup-benchmark.json"